@@ -0,0 +1,42 @@
+package benchmarks;
+
+import influencer.Graph;
+import util.FastGraphLoader;
+
+/**
+ * Graph sources shared by the benchmarks, named by the "source" parameter:
+ * "higgs" loads twitter_higgs.txt (path from the influencer.data system
+ * property), "powerlaw-N" generates a PowerLawGraphs graph of N nodes and
+ * "powerlaw-N-E" one of N nodes with E edges per node.
+ *
+ * @author Hillary
+ */
+final class BenchmarkGraphs {
+
+	static final String DATA_PROPERTY = "influencer.data";
+	static final double EDGES_PER_NODE = 1.3;
+	static final long SEED = 42;
+
+	private BenchmarkGraphs() {
+	}
+
+	static String dataFile() {
+		return System.getProperty(DATA_PROPERTY, "twitter_higgs.txt");
+	}
+
+	static Graph load(String source) {
+		if (source.equals("higgs")) {
+			Graph graph = new Graph();
+			FastGraphLoader.loadGraph(graph, dataFile(), true);
+			return graph;
+		}
+		if (source.startsWith("powerlaw-")) {
+			String[] sizes = source.substring("powerlaw-".length()).split("-");
+			int numNodes = Integer.parseInt(sizes[0]);
+			double edgesPerNode = sizes.length > 1 ? Double.parseDouble(sizes[1]) : EDGES_PER_NODE;
+			return PowerLawGraphs.generate(numNodes, edgesPerNode, SEED);
+		}
+		throw new IllegalArgumentException("Unknown graph source " + source);
+	}
+
+}
@@ -0,0 +1,75 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import influencer.CascadeModelingWithInfluencers;
+import influencer.CsrGraph;
+import influencer.Graph;
+
+/**
+ * Both model overloads, one seed and the top seeds together, for every cascade
+ * engine
+ *
+ * @author Hillary
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class CascadeBenchmark {
+
+	@Param({ "higgs", "powerlaw-10000", "powerlaw-100000", "powerlaw-1000000" })
+	public String source;
+
+	@Param({ "FULL_SCAN", "INCREMENTAL", "PARALLEL" })
+	public CascadeModelingWithInfluencers.Engine engine;
+
+	@Param({ "10" })
+	public int iterations;
+
+	@Param({ "1" })
+	public int rewardForInertia;
+
+	@Param({ "3" })
+	public int rewardForChange;
+
+	private CascadeModelingWithInfluencers cascade;
+	private List<Integer> seeds;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Graph graph = BenchmarkGraphs.load(source);
+		CsrGraph csr = graph.freeze();
+		cascade = new CascadeModelingWithInfluencers(csr, engine);
+		seeds = csr.findInfluencers(5);
+	}
+
+	@Benchmark
+	public Map<Integer, Set<Integer>> modelOneSeed() {
+		return cascade.model(iterations, seeds.get(0), rewardForInertia, rewardForChange);
+	}
+
+	@Benchmark
+	public Map<Integer, Set<Integer>> modelSeedList() {
+		return cascade.model(iterations, seeds, rewardForInertia, rewardForChange);
+	}
+
+}
@@ -0,0 +1,78 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import influencer.Graph;
+import influencer.InfluencerGraph;
+import influencer.ShortestPathTree;
+
+/**
+ * Copying, ranking and traversal on the higgs graph and on power law graphs of
+ * growing size
+ *
+ * @author Hillary
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class GraphBenchmark {
+
+	@Param({ "higgs", "powerlaw-10000", "powerlaw-100000", "powerlaw-1000000" })
+	public String source;
+
+	@Param({ "5" })
+	public int howMany;
+
+	private Graph graph;
+	private InfluencerGraph influencerGraph;
+	private int farthestNode;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		graph = BenchmarkGraphs.load(source);
+		influencerGraph = (InfluencerGraph) graph.getInfluencerGraphs(1).get(0);
+		// the node at the end of the longest shortest path is the worst case
+		final int[] farthest = { influencerGraph.getInfluentialNodeNum(), 0 };
+		ShortestPathTree tree = influencerGraph.getShortestPathTree();
+		tree.forEachPath((nodeNum, path, length) -> {
+			if (length > farthest[1]) {
+				farthest[0] = nodeNum;
+				farthest[1] = length;
+			}
+		});
+		farthestNode = farthest[0];
+	}
+
+	@Benchmark
+	public Graph deepCopy() {
+		return graph.deepCopy();
+	}
+
+	@Benchmark
+	public List<Graph> getInfluencerGraphs() {
+		return graph.getInfluencerGraphs(howMany);
+	}
+
+	@Benchmark
+	public List<Integer> getShortestPath() {
+		return influencerGraph.getShortestPath(farthestNode);
+	}
+
+}
@@ -0,0 +1,55 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import influencer.Graph;
+import util.FastGraphLoader;
+import util.GraphLoader;
+
+/**
+ * Loading twitter_higgs.txt with the Scanner loader and the mapped loader.
+ * Each load takes seconds, so every call is timed on its own. Only the mapped
+ * loader has a thread count, so it is a parameter of its own state and the
+ * Scanner load runs once
+ *
+ * @author Hillary
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class LoadBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class MappedLoad {
+		@Param({ "1", "4" })
+		public int threads;
+	}
+
+	@Benchmark
+	public Graph scannerLoad() {
+		Graph graph = new Graph();
+		GraphLoader.loadGraph(graph, BenchmarkGraphs.dataFile());
+		return graph;
+	}
+
+	@Benchmark
+	public Graph mappedLoad(MappedLoad load) {
+		Graph graph = new Graph();
+		FastGraphLoader.loadGraph(graph, BenchmarkGraphs.dataFile(), load.threads);
+		return graph;
+	}
+
+}
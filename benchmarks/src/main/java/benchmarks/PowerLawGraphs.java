@@ -0,0 +1,96 @@
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import influencer.Graph;
+
+/**
+ * Synthetic retweet graphs with power law degrees, so benchmarks can be run at
+ * several sizes and the scaling curves reproduced. Uses a directed Chung-Lu
+ * model: each edge picks the retweeted node and the retweeting node at random,
+ * weighted by rank^(-1/(exponent-1)), which gives in and out degrees that follow
+ * a power law with the given exponent. The same arguments always give the same
+ * graph.
+ *
+ * @author Hillary
+ */
+public final class PowerLawGraphs {
+
+	// exponents close to the ones measured on the higgs retweet graph
+	public static final double RETWEETED_EXPONENT = 2.1;
+	public static final double RETWEETER_EXPONENT = 2.8;
+
+	private PowerLawGraphs() {
+	}
+
+	/**
+	 * @param numNodes     -- how many nodes to draw from
+	 * @param edgesPerNode -- average number of retweets per node
+	 * @param seed         -- random seed
+	 * @return graph built with Graph.addEdges, nodes without edges left out
+	 */
+	public static Graph generate(int numNodes, double edgesPerNode, long seed) {
+		if (numNodes < 2 || edgesPerNode <= 0) {
+			throw new IllegalArgumentException("Need at least 2 nodes and a positive number of edges per node.");
+		}
+		int numEdges = (int) (numNodes * edgesPerNode);
+		double[] retweeted = cumulativeWeights(numNodes, RETWEETED_EXPONENT);
+		double[] retweeters = cumulativeWeights(numNodes, RETWEETER_EXPONENT);
+		// shuffle the ranks of the retweeters so the busiest retweeters are not
+		// also the most retweeted nodes
+		int[] retweeterNums = shuffledNodeNums(numNodes, new SplittableRandom(seed ^ 0x5DEECE66DL));
+		SplittableRandom random = new SplittableRandom(seed);
+		int[] from = new int[numEdges];
+		int[] to = new int[numEdges];
+		int n = 0;
+		while (n < numEdges) {
+			int retweetedNode = sample(retweeted, random);
+			int retweeterNode = retweeterNums[sample(retweeters, random)];
+			if (retweetedNode != retweeterNode) {
+				from[n] = retweetedNode;
+				to[n] = retweeterNode;
+				n++;
+			}
+		}
+		Graph graph = new Graph(numNodes);
+		graph.addEdges(from, to, numEdges);
+		return graph;
+	}
+
+	// helper to generate with the running sum of rank^(-1/(exponent-1))
+	private static double[] cumulativeWeights(int numNodes, double exponent) {
+		double power = -1.0 / (exponent - 1);
+		double[] cumulative = new double[numNodes];
+		double sum = 0;
+		for (int i = 0; i < numNodes; i++) {
+			sum += Math.pow(i + 1, power);
+			cumulative[i] = sum;
+		}
+		return cumulative;
+	}
+
+	// helper to generate that picks a node with probability proportional to its
+	// weight
+	private static int sample(double[] cumulative, SplittableRandom random) {
+		double target = random.nextDouble() * cumulative[cumulative.length - 1];
+		int index = Arrays.binarySearch(cumulative, target);
+		return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+	}
+
+	// helper to generate with a random permutation of 0 .. numNodes - 1
+	private static int[] shuffledNodeNums(int numNodes, SplittableRandom random) {
+		int[] nodeNums = new int[numNodes];
+		for (int i = 0; i < numNodes; i++) {
+			nodeNums[i] = i;
+		}
+		for (int i = numNodes - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = nodeNums[i];
+			nodeNums[i] = nodeNums[j];
+			nodeNums[j] = swap;
+		}
+		return nodeNums;
+	}
+
+}
@@ -0,0 +1,64 @@
+package benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import influencer.InfluencerGraph;
+import influencer.ReachAnalysis;
+import influencer.ShortestPathTree;
+
+/**
+ * Reach of the top influencer with the plain breadth first search of
+ * getShortestPathTree against the direction optimizing search of
+ * analyzeReach. "powerlaw-50000-30" is a dense graph where the search goes
+ * bottom up; on higgs it stays top down
+ *
+ * @author Hillary
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ReachBenchmark {
+
+	@Param({ "higgs", "powerlaw-1000000", "powerlaw-50000-30" })
+	public String source;
+
+	private InfluencerGraph influencerGraph;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		influencerGraph = (InfluencerGraph) BenchmarkGraphs.load(source).getInfluencerGraphs(1).get(0);
+	}
+
+	@Benchmark
+	public ShortestPathTree breadthFirst() {
+		return influencerGraph.getShortestPathTree();
+	}
+
+	@Benchmark
+	public ReachAnalysis directionOptimizing() {
+		return influencerGraph.analyzeReach();
+	}
+
+	@Benchmark
+	public ReachAnalysis directionOptimizingParallel() {
+		return influencerGraph.analyzeReach(ForkJoinPool.commonPool());
+	}
+
+}
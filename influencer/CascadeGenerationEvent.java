@@ -0,0 +1,59 @@
+package influencer;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for one cascade generation. Off unless a recording
+ * enables influencer.CascadeGeneration
+ *
+ * @author Hillary
+ */
+@Name("influencer.CascadeGeneration")
+@Label("Cascade Generation")
+@Category("Influencer")
+@Description("One generation of CascadeModelingWithInfluencers.model")
+final class CascadeGenerationEvent extends Event {
+
+	private static final EventType TYPE = EventType.getEventType(CascadeGenerationEvent.class);
+
+	@Label("Engine")
+	String engine;
+
+	@Label("Generation")
+	int generation;
+
+	@Label("Result Copy Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long resultNanos;
+
+	@Label("Nodes Evaluated")
+	long nodesEvaluated;
+
+	@Label("Edges Scanned")
+	long edgesScanned;
+
+	@Label("Newly Activated")
+	int newlyActivated;
+
+	@Label("Total Active")
+	int totalActive;
+
+	@Label("Bytes Allocated")
+	@DataAmount
+	long bytesAllocated;
+
+	/**
+	 * @return whether a running recording wants these events
+	 */
+	static boolean isTypeEnabled() {
+		return TYPE.isEnabled();
+	}
+
+}
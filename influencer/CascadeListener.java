@@ -0,0 +1,27 @@
+package influencer;
+
+/**
+ * Receives the metrics of each cascade generation from
+ * CascadeModelingWithInfluencers. Called on the thread that runs the cascade,
+ * right after the generation is added to the result
+ *
+ * @author Hillary
+ */
+public interface CascadeListener {
+
+	/**
+	 * @param metrics -- what the generation cost
+	 */
+	void generationFinished(GenerationMetrics metrics);
+
+	/**
+	 * Checked once at the start of every run. While false the cascade does not
+	 * time or measure anything for this listener
+	 *
+	 * @return whether metrics should be collected
+	 */
+	default boolean isEnabled() {
+		return true;
+	}
+
+}
@@ -0,0 +1,135 @@
+package influencer;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Running totals of every generation it hears about, published over JMX as
+ * influencer:type=CascadeMetrics. Attach it to each cascade with
+ * setListener; it starts disabled, so it costs nothing until the Enabled
+ * attribute is switched on from a JMX console
+ *
+ * @author Hillary
+ */
+public class CascadeMetrics implements CascadeListener, CascadeMetricsMXBean {
+
+	public static final String OBJECT_NAME = "influencer:type=CascadeMetrics";
+
+	private static CascadeMetrics registered;
+
+	private volatile boolean enabled;
+	private final LongAdder generations = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final LongAdder resultNanos = new LongAdder();
+	private final LongAdder nodesEvaluated = new LongAdder();
+	private final LongAdder edgesScanned = new LongAdder();
+	private final LongAdder nodesActivated = new LongAdder();
+	private final LongAdder bytesAllocated = new LongAdder();
+	private final LongAccumulator maxGenerationNanos = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * @return the instance registered with the platform MBean server, registering
+	 *         it on the first call
+	 */
+	public static synchronized CascadeMetrics register() {
+		if (registered == null) {
+			CascadeMetrics metrics = new CascadeMetrics();
+			try {
+				MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+				server.registerMBean(metrics, new ObjectName(OBJECT_NAME));
+			} catch (JMException e) {
+				throw new IllegalStateException("Could not register " + OBJECT_NAME + ".", e);
+			}
+			registered = metrics;
+		}
+		return registered;
+	}
+
+	@Override
+	public void generationFinished(GenerationMetrics metrics) {
+		generations.increment();
+		totalNanos.add(metrics.getNanos());
+		resultNanos.add(metrics.getResultNanos());
+		nodesEvaluated.add(metrics.getNodesEvaluated());
+		edgesScanned.add(metrics.getEdgesScanned());
+		nodesActivated.add(metrics.getNewlyActivated());
+		if (metrics.getBytesAllocated() > 0) {
+			bytesAllocated.add(metrics.getBytesAllocated());
+		}
+		maxGenerationNanos.accumulate(metrics.getNanos());
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	@Override
+	public long getGenerations() {
+		return generations.sum();
+	}
+
+	@Override
+	public long getTotalNanos() {
+		return totalNanos.sum();
+	}
+
+	@Override
+	public long getResultNanos() {
+		return resultNanos.sum();
+	}
+
+	@Override
+	public long getNodesEvaluated() {
+		return nodesEvaluated.sum();
+	}
+
+	@Override
+	public long getEdgesScanned() {
+		return edgesScanned.sum();
+	}
+
+	@Override
+	public long getNodesActivated() {
+		return nodesActivated.sum();
+	}
+
+	@Override
+	public long getBytesAllocated() {
+		return bytesAllocated.sum();
+	}
+
+	@Override
+	public long getMaxGenerationNanos() {
+		return maxGenerationNanos.get();
+	}
+
+	@Override
+	public void reset() {
+		generations.reset();
+		totalNanos.reset();
+		resultNanos.reset();
+		nodesEvaluated.reset();
+		edgesScanned.reset();
+		nodesActivated.reset();
+		bytesAllocated.reset();
+		maxGenerationNanos.reset();
+	}
+
+	@Override
+	public String toString() {
+		return "Cascade metrics: " + getGenerations() + " generations, " + getNodesActivated() + " activated in "
+				+ getTotalNanos() + " ns";
+	}
+
+}
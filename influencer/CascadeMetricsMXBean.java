@@ -0,0 +1,32 @@
+package influencer;
+
+/**
+ * Management interface of CascadeMetrics
+ *
+ * @author Hillary
+ */
+public interface CascadeMetricsMXBean {
+
+	boolean isEnabled();
+
+	void setEnabled(boolean enabled);
+
+	long getGenerations();
+
+	long getTotalNanos();
+
+	long getResultNanos();
+
+	long getNodesEvaluated();
+
+	long getEdgesScanned();
+
+	long getNodesActivated();
+
+	long getBytesAllocated();
+
+	long getMaxGenerationNanos();
+
+	void reset();
+
+}
@@ -1,10 +1,14 @@
 package influencer;
 
-import java.util.HashSet;
-import java.util.LinkedHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
  * @author Hillary
@@ -14,10 +18,89 @@ import java.util.Set;
  */
 public class CascadeModelingWithInfluencers {
 
-	private Graph graph;
+	/**
+	 * How each generation of the cascade is computed. Both give the same result
+	 */
+	public enum Engine {
+		/**
+		 * every generation rechecks all followers of every active node
+		 */
+		FULL_SCAN,
+		/**
+		 * keeps a running active edge weight per node and only pushes the nodes
+		 * that became active in the last generation to their followers
+		 */
+		INCREMENTAL,
+		/**
+		 * splits the frontier and then the nodes it reaches across a fork join
+		 * pool. Every decision in a generation reads the previous generation's
+		 * active nodes, so the chunks are independent
+		 */
+		PARALLEL
+	}
+
+	// smallest number of nodes handed to one fork join task
+	private static final int MIN_CHUNK = 256;
+
+	private final CsrGraph graph;
+	private final Engine engine;
+	private final ForkJoinPool pool;
+	private volatile CascadeListener listener;
 
 	public CascadeModelingWithInfluencers(Graph graph) {
+		this(graph.freeze());
+	}
+
+	/**
+	 * @param graph -- frozen graph to run the cascade on
+	 */
+	public CascadeModelingWithInfluencers(CsrGraph graph) {
+		this(graph, Engine.FULL_SCAN);
+	}
+
+	/**
+	 * @param graph  -- frozen graph to run the cascade on
+	 * @param engine -- how generations are computed
+	 */
+	public CascadeModelingWithInfluencers(CsrGraph graph, Engine engine) {
+		this(graph, engine, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param graph  -- frozen graph to run the cascade on
+	 * @param engine -- how generations are computed
+	 * @param pool   -- threads for the PARALLEL engine, null to run its chunks
+	 *               on the calling thread
+	 */
+	public CascadeModelingWithInfluencers(CsrGraph graph, Engine engine, ForkJoinPool pool) {
 		this.graph = graph;
+		this.engine = engine;
+		this.pool = pool;
+	}
+
+	/**
+	 * Runs the cascade inside one community only, as split by GraphComponents:
+	 * nodes outside it never change behavior and do not count toward anyone's
+	 * threshold
+	 * 
+	 * @param graph       -- frozen graph the communities are of
+	 * @param engine      -- how generations are computed
+	 * @param communities -- community of every dense index of graph
+	 * @param community   -- community to run in
+	 */
+	public CascadeModelingWithInfluencers(CsrGraph graph, Engine engine, int[] communities, int community) {
+		this(GraphComponents.restrict(graph, communities, community), engine);
+	}
+
+	/**
+	 * Reports the metrics of every generation of later runs to listener. Runs
+	 * also emit influencer.CascadeGeneration flight recorder events whenever a
+	 * recording enables them
+	 * 
+	 * @param listener -- receives the metrics, or null to stop reporting
+	 */
+	public void setListener(CascadeListener listener) {
+		this.listener = listener;
 	}
 
 	/**
@@ -38,11 +121,7 @@ public class CascadeModelingWithInfluencers {
 	 */
 	public Map<Integer, Set<Integer>> model(int iterations, int influentialNode, int rewardForInertia,
 			int rewardForChange) {
-		validateArguments(iterations, rewardForInertia, rewardForChange);
-		Map<Integer, Set<Integer>> result = new LinkedHashMap<Integer, Set<Integer>>();
-		Set<Integer> activeNodes = new HashSet<Integer>();
-		activeNodes.add(influentialNode);
-		return beginCascade(iterations, rewardForInertia, rewardForChange, result, activeNodes);
+		return modelResult(iterations, influentialNode, rewardForInertia, rewardForChange).toMap();
 	}
 
 	/**
@@ -62,22 +141,65 @@ public class CascadeModelingWithInfluencers {
 	 */
 	public Map<Integer, Set<Integer>> model(int iterations, List<Integer> influentialNodes, int rewardForInertia,
 			int rewardForChange) {
+		return modelResult(iterations, influentialNodes, rewardForInertia, rewardForChange).toMap();
+	}
+
+	/**
+	 * Same as model(int, int, int, int) but returns the compact CascadeResult,
+	 * which takes no per generation sets
+	 */
+	public CascadeResult modelResult(int iterations, int influentialNode, int rewardForInertia,
+			int rewardForChange) {
+		return modelResult(iterations, Collections.singletonList(influentialNode), rewardForInertia,
+				rewardForChange);
+	}
+
+	/**
+	 * Same as model(int, List, int, int) but returns the compact CascadeResult,
+	 * which takes no per generation sets
+	 */
+	public CascadeResult modelResult(int iterations, List<Integer> influentialNodes, int rewardForInertia,
+			int rewardForChange) {
+		return modelResult(iterations, influentialNodes, rewardForInertia, rewardForChange,
+				new Scratch(graph.getNumNodes()));
+	}
+
+	/**
+	 * Same as modelResult(int, List, int, int) but runs in working arrays
+	 * supplied by the caller, which are left ready for the next run
+	 */
+	CascadeResult modelResult(int iterations, List<Integer> influentialNodes, int rewardForInertia,
+			int rewardForChange, Scratch scratch) {
 		validateArguments(iterations, rewardForInertia, rewardForChange);
-		Map<Integer, Set<Integer>> result = new LinkedHashMap<Integer, Set<Integer>>();
-		Set<Integer> activeNodes = new HashSet<Integer>(influentialNodes);
-		return beginCascade(iterations, rewardForInertia, rewardForChange, result, activeNodes);
+		try {
+			for (int influentialNode : influentialNodes) {
+				scratch.add(seedIndex(influentialNode));
+			}
+			return beginCascade(iterations, rewardForInertia, rewardForChange, scratch,
+					CascadeRecorder.start(listener, engine));
+		} finally {
+			scratch.clear(graph);
+		}
 	}
 
 	/**
 	 * helper to model overload methods that starts cascade once influential nodes
 	 * are set
 	 */
-	private Map<Integer, Set<Integer>> beginCascade(int iterations, int rewardForInertia, int rewardForChange,
-			Map<Integer, Set<Integer>> result, Set<Integer> activeNodes) {
-		result.put(activeNodes.size(), new HashSet<Integer>(activeNodes));
+	private CascadeResult beginCascade(int iterations, int rewardForInertia, int rewardForChange, Scratch scratch,
+			CascadeRecorder recorder) {
+		scratch.endGeneration();
+		scratch.counting = recorder != null;
 		float rewardProbability = calculateRewardProbability(rewardForInertia, rewardForChange);
-		runGenerations(iterations, result, activeNodes, rewardProbability);
-		return result;
+		if (engine == Engine.INCREMENTAL) {
+			runFrontierGenerations(iterations, scratch, rewardProbability, recorder);
+		} else if (engine == Engine.PARALLEL) {
+			runParallelGenerations(iterations, scratch, rewardProbability, recorder);
+		} else {
+			runGenerations(iterations, scratch, rewardProbability, recorder);
+		}
+		return new CascadeResult(graph, Arrays.copyOf(scratch.activeNodes, scratch.numActive),
+				Arrays.copyOf(scratch.generationEnds, scratch.numGenerations), scratch.numGenerations);
 	}
 
 	/**
@@ -90,46 +212,239 @@ public class CascadeModelingWithInfluencers {
 		}
 	}
 
+	/**
+	 * helper to model that maps a seed's node number to its index in the graph
+	 */
+	private int seedIndex(int influentialNode) {
+		int index = graph.indexOf(influentialNode);
+		if (index < 0) {
+			throw new IllegalArgumentException("Influential node " + influentialNode + " is not in the graph.");
+		}
+		return index;
+	}
+
 	/**
 	 * helper to model that runs the specified number of iterations and saves the
-	 * number who change behavior in the result map
+	 * end of each generation in scratch. visited holds the generation
+	 * a node was last checked in so it never has to be cleared
 	 */
-	private void runGenerations(int iterations, Map<Integer, Set<Integer>> result, Set<Integer> activeNodes,
-			float rewardProbability) {
+	private void runGenerations(int iterations, Scratch scratch, float rewardProbability,
+			CascadeRecorder recorder) {
+		int[] visited = scratch.visited;
+		int[] nodesChangedThisIteration = scratch.nodesChanged;
 		for (int i = 0; i < iterations; i++) {
-			Set<Integer> visited = new HashSet<Integer>();
-			Set<Integer> nodesChangedThisIteration = new HashSet<Integer>();
-			for (int activeNodeNum : activeNodes) {
-				GraphNode activeNode = graph.getOneNode(activeNodeNum);
-				for (int followerNodeNum : activeNode.getFollowers().keySet()) {
-					checkFollowerNodes(activeNodes, rewardProbability, visited, nodesChangedThisIteration,
-							followerNodeNum);
+			beginGeneration(recorder, scratch);
+			int generation = scratch.nextStamp();
+			int numChanged = 0;
+			int numActive = scratch.numActive;
+			for (int a = 0; a < numActive; a++) {
+				int activeNode = scratch.activeNodes[a];
+				if (scratch.counting) {
+					scratch.edgesScanned += graph.followerEnd(activeNode) - graph.followerStart(activeNode);
+				}
+				for (int k = graph.followerStart(activeNode); k < graph.followerEnd(activeNode); k++) {
+					numChanged = checkFollowerNodes(scratch, rewardProbability, visited, generation,
+							nodesChangedThisIteration, numChanged, graph.followerAt(k));
 				}
 			}
-			if (nodesChangedThisIteration.isEmpty()) {
+			if (numChanged == 0) {
+				endGeneration(recorder, i + 1, scratch, 0);
 				break;
 			}
-			for (int node : nodesChangedThisIteration) {
-				activeNodes.add(node);
+			if (recorder != null) {
+				recorder.beginResult();
+			}
+			for (int c = 0; c < numChanged; c++) {
+				scratch.add(nodesChangedThisIteration[c]);
 			}
-			result.put(activeNodes.size(), new HashSet<Integer>(nodesChangedThisIteration));
+			scratch.endGeneration();
+			endGeneration(recorder, i + 1, scratch, numChanged);
 		}
 	}
 
+	/**
+	 * helper to model that does the same as runGenerations but only looks at the
+	 * followers of the frontier (nodes that became active last generation).
+	 * activeWeight holds, for every node, the edge weight to the nodes it follows
+	 * that are active, so a node whose active weight did not change this
+	 * generation already failed the same check and is skipped. Nodes are appended
+	 * to the active nodes in activation order, so the frontier is always its tail
+	 */
+	private void runFrontierGenerations(int iterations, Scratch scratch, float rewardProbability,
+			CascadeRecorder recorder) {
+		int[] activeWeight = scratch.activeWeight;
+		int[] visited = scratch.visited;
+		int[] candidates = scratch.candidates;
+		int[] nodesChangedThisIteration = scratch.nodesChanged;
+		int frontierStart = 0;
+		for (int i = 0; i < iterations; i++) {
+			beginGeneration(recorder, scratch);
+			int generation = scratch.nextStamp();
+			int numCandidates = 0;
+			int frontierEnd = scratch.numActive;
+			for (int a = frontierStart; a < frontierEnd; a++) {
+				int activeNode = scratch.activeNodes[a];
+				if (scratch.counting) {
+					scratch.edgesScanned += graph.followerEnd(activeNode) - graph.followerStart(activeNode);
+				}
+				for (int k = graph.followerStart(activeNode); k < graph.followerEnd(activeNode); k++) {
+					int followerNode = graph.followerAt(k);
+					if (!scratch.isActive[followerNode]) {
+						activeWeight[followerNode] += graph.followerWeightAt(k);
+						if (visited[followerNode] != generation) {
+							visited[followerNode] = generation;
+							candidates[numCandidates++] = followerNode;
+						}
+					}
+				}
+			}
+			scratch.nodesEvaluated = numCandidates;
+			int numChanged = 0;
+			for (int c = 0; c < numCandidates; c++) {
+				int candidate = candidates[c];
+				float influencePercent = ((float) activeWeight[candidate]) / graph.getTotalRetweetsMade(candidate);
+				if (influencePercent > rewardProbability) {
+					nodesChangedThisIteration[numChanged++] = candidate;
+				}
+			}
+			if (numChanged == 0) {
+				endGeneration(recorder, i + 1, scratch, 0);
+				break;
+			}
+			if (recorder != null) {
+				recorder.beginResult();
+			}
+			frontierStart = frontierEnd;
+			for (int c = 0; c < numChanged; c++) {
+				scratch.add(nodesChangedThisIteration[c]);
+			}
+			scratch.endGeneration();
+			endGeneration(recorder, i + 1, scratch, numChanged);
+		}
+	}
+
+	/**
+	 * helper to model that runs each generation in two fork join passes. The
+	 * first collects the inactive followers of the frontier, claiming each one
+	 * once with an atomic generation stamp; the second checks the influence
+	 * percent of every collected node against the unchanged active set. Nodes
+	 * outside the frontier's reach can not change, as in runFrontierGenerations
+	 */
+	private void runParallelGenerations(int iterations, Scratch scratch, float rewardProbability,
+			CascadeRecorder recorder) {
+		AtomicIntegerArray visited = scratch.parallelVisited();
+		int[] candidates = scratch.candidates;
+		int[] nodesChangedThisIteration = scratch.nodesChanged;
+		int frontierStart = 0;
+		for (int i = 0; i < iterations; i++) {
+			beginGeneration(recorder, scratch);
+			int generation = scratch.nextStamp();
+			int frontierEnd = scratch.numActive;
+			List<FrontierChunk> frontierChunks = new ArrayList<FrontierChunk>();
+			for (int[] range : chunkRanges(frontierStart, frontierEnd)) {
+				frontierChunks.add(new FrontierChunk(scratch, range[0], range[1], visited, generation));
+			}
+			ChunkRunner.run(pool, frontierChunks);
+			int numCandidates = 0;
+			for (FrontierChunk chunk : frontierChunks) {
+				System.arraycopy(chunk.found, 0, candidates, numCandidates, chunk.numFound);
+				numCandidates += chunk.numFound;
+				scratch.edgesScanned += chunk.edgesScanned;
+				if (recorder != null) {
+					recorder.addWorkerBytes(chunk.workerBytes);
+				}
+			}
+			scratch.nodesEvaluated = numCandidates;
+			List<CandidateChunk> candidateChunks = new ArrayList<CandidateChunk>();
+			for (int[] range : chunkRanges(0, numCandidates)) {
+				candidateChunks.add(new CandidateChunk(scratch, candidates, range[0], range[1],
+						nodesChangedThisIteration, rewardProbability));
+			}
+			ChunkRunner.run(pool, candidateChunks);
+			int numChanged = 0;
+			for (CandidateChunk chunk : candidateChunks) {
+				System.arraycopy(nodesChangedThisIteration, chunk.from, nodesChangedThisIteration, numChanged,
+						chunk.numChanged);
+				numChanged += chunk.numChanged;
+				scratch.edgesScanned += chunk.edgesScanned;
+				if (recorder != null) {
+					recorder.addWorkerBytes(chunk.workerBytes);
+				}
+			}
+			if (numChanged == 0) {
+				endGeneration(recorder, i + 1, scratch, 0);
+				break;
+			}
+			if (recorder != null) {
+				recorder.beginResult();
+			}
+			frontierStart = frontierEnd;
+			for (int c = 0; c < numChanged; c++) {
+				scratch.add(nodesChangedThisIteration[c]);
+			}
+			scratch.endGeneration();
+			endGeneration(recorder, i + 1, scratch, numChanged);
+		}
+	}
+
+	/**
+	 * helper to the run methods that zeroes the generation's counters and starts
+	 * its timer if metrics are wanted
+	 */
+	private void beginGeneration(CascadeRecorder recorder, Scratch scratch) {
+		scratch.nodesEvaluated = 0;
+		scratch.edgesScanned = 0;
+		if (recorder != null) {
+			recorder.beginGeneration();
+		}
+	}
+
+	/**
+	 * helper to the run methods that reports a finished generation if metrics are
+	 * wanted
+	 */
+	private void endGeneration(CascadeRecorder recorder, int generation, Scratch scratch, int numChanged) {
+		if (recorder != null) {
+			recorder.endGeneration(generation, scratch.nodesEvaluated, scratch.edgesScanned, numChanged,
+					scratch.numActive);
+		}
+	}
+
+	/**
+	 * helper to runParallelGenerations that splits [from, to) into about four
+	 * ranges per pool thread, none smaller than MIN_CHUNK. Without a pool the
+	 * chunks run on the calling thread, as one thread
+	 */
+	private List<int[]> chunkRanges(int from, int to) {
+		int parallelism = pool == null ? 1 : pool.getParallelism();
+		int chunkSize = Math.max(MIN_CHUNK, (to - from) / (parallelism * 4) + 1);
+		List<int[]> ranges = new ArrayList<int[]>();
+		for (int start = from; start < to; start += chunkSize) {
+			ranges.add(new int[] { start, Math.min(to, start + chunkSize) });
+		}
+		return ranges;
+	}
+
 	/**
 	 * helper to model() that determines whether a node will change behavior based
 	 * on percentage of nodes followed exhibit the behavior
+	 * 
+	 * @return how many nodes have changed this iteration so far
 	 */
-	private void checkFollowerNodes(Set<Integer> activeNodes, float rewardProbability, Set<Integer> visited,
-			Set<Integer> nodesChangedThisIteration, int followerNodeNum) {
-		if (!visited.contains(followerNodeNum) && !activeNodes.contains(followerNodeNum)) {
-			GraphNode followerNode = graph.getOneNode(followerNodeNum);
-			float influencePercent = calculateInfluencePercent(followerNode, activeNodes);
+	private int checkFollowerNodes(Scratch scratch, float rewardProbability, int[] visited, int generation,
+			int[] nodesChangedThisIteration, int numChanged, int followerNode) {
+		if (visited[followerNode] != generation && !scratch.isActive[followerNode]) {
+			if (scratch.counting) {
+				scratch.nodesEvaluated++;
+				scratch.edgesScanned += graph.followedEnd(followerNode) - graph.followedStart(followerNode);
+			}
+			float influencePercent = calculateInfluencePercent(followerNode, scratch);
 			if (influencePercent > rewardProbability) {
-				nodesChangedThisIteration.add(followerNodeNum);
+				nodesChangedThisIteration[numChanged++] = followerNode;
 			}
-			visited.add(followerNodeNum);
+			visited[followerNode] = generation;
 		}
+		return numChanged;
 	}
 
 	/**
@@ -137,15 +452,14 @@ public class CascadeModelingWithInfluencers {
 	 * retweets made to calculate the influence percentage that connected active
 	 * nodes have on this node
 	 */
-	private float calculateInfluencePercent(GraphNode node, Set<Integer> activeNodes) {
-		Map<Integer, Integer> nodesFollowed = node.getNodesIFollow();
+	private float calculateInfluencePercent(int node, Scratch scratch) {
 		float thoseActive = 0;
-		for (int followedNode : nodesFollowed.keySet()) {
-			if (activeNodes.contains(followedNode)) {
-				thoseActive += nodesFollowed.get(followedNode);
+		for (int k = graph.followedStart(node); k < graph.followedEnd(node); k++) {
+			if (scratch.isActive[graph.followedAt(k)]) {
+				thoseActive += graph.followedWeightAt(k);
 			}
 		}
-		return thoseActive / (node.getTotalRetweetsMade());
+		return thoseActive / (graph.getTotalRetweetsMade(node));
 	}
 
 	/**
@@ -155,4 +469,192 @@ public class CascadeModelingWithInfluencers {
 		return ((float) rewardForInertia) / (rewardForChange + rewardForInertia);
 	}
 
+	/**
+	 * First pass of a parallel generation over part of the frontier. Collects the
+	 * inactive followers this chunk claimed first into its own buffer
+	 */
+	private final class FrontierChunk extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Scratch scratch;
+		private final int from;
+		private final int to;
+		private final AtomicIntegerArray visited;
+		private final int generation;
+		private int[] found = new int[MIN_CHUNK];
+		private int numFound;
+		private long edgesScanned;
+		private long workerBytes;
+		private final Thread caller = Thread.currentThread();
+
+		private FrontierChunk(Scratch scratch, int from, int to, AtomicIntegerArray visited,
+				int generation) {
+			this.scratch = scratch;
+			this.from = from;
+			this.to = to;
+			this.visited = visited;
+			this.generation = generation;
+		}
+
+		@Override
+		protected void compute() {
+			// the calling thread's own counter already includes what runs on it
+			long allocatedAtStart = scratch.counting && Thread.currentThread() != caller
+					? CascadeRecorder.threadAllocatedBytes()
+					: -1;
+			for (int a = from; a < to; a++) {
+				int activeNode = scratch.activeNodes[a];
+				if (scratch.counting) {
+					edgesScanned += graph.followerEnd(activeNode) - graph.followerStart(activeNode);
+				}
+				for (int k = graph.followerStart(activeNode); k < graph.followerEnd(activeNode); k++) {
+					int followerNode = graph.followerAt(k);
+					if (!scratch.isActive[followerNode] && visited.get(followerNode) != generation
+							&& visited.getAndSet(followerNode, generation) != generation) {
+						if (numFound == found.length) {
+							found = Arrays.copyOf(found, numFound * 2);
+						}
+						found[numFound++] = followerNode;
+					}
+				}
+			}
+			if (allocatedAtStart >= 0) {
+				workerBytes = CascadeRecorder.threadAllocatedBytes() - allocatedAtStart;
+			}
+		}
+	}
+
+	/**
+	 * Second pass of a parallel generation over part of the candidates. Writes
+	 * the ones that change behavior to the start of its own range of the output
+	 */
+	private final class CandidateChunk extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Scratch scratch;
+		private final int[] candidates;
+		private final int from;
+		private final int to;
+		private final int[] nodesChanged;
+		private final float rewardProbability;
+		private int numChanged;
+		private long edgesScanned;
+		private long workerBytes;
+		private final Thread caller = Thread.currentThread();
+
+		private CandidateChunk(Scratch scratch, int[] candidates, int from, int to, int[] nodesChanged,
+				float rewardProbability) {
+			this.scratch = scratch;
+			this.candidates = candidates;
+			this.from = from;
+			this.to = to;
+			this.nodesChanged = nodesChanged;
+			this.rewardProbability = rewardProbability;
+		}
+
+		@Override
+		protected void compute() {
+			// the calling thread's own counter already includes what runs on it
+			long allocatedAtStart = scratch.counting && Thread.currentThread() != caller
+					? CascadeRecorder.threadAllocatedBytes()
+					: -1;
+			for (int c = from; c < to; c++) {
+				if (scratch.counting) {
+					edgesScanned += graph.followedEnd(candidates[c]) - graph.followedStart(candidates[c]);
+				}
+				if (calculateInfluencePercent(candidates[c], scratch) > rewardProbability) {
+					nodesChanged[from + numChanged++] = candidates[c];
+				}
+			}
+			if (allocatedAtStart >= 0) {
+				workerBytes = CascadeRecorder.threadAllocatedBytes() - allocatedAtStart;
+			}
+		}
+	}
+
+	/**
+	 * Working arrays of one cascade run, indexed by dense node index, that a
+	 * thread can reuse from run to run. Active nodes are kept as a flag per node
+	 * for membership and a list in activation order for iteration. visited, and
+	 * parallelVisited for the PARALLEL engine, hold a stamp that is never
+	 * reused, so they do not have to be cleared
+	 */
+	static final class Scratch {
+		private final boolean[] isActive;
+		private final int[] activeNodes;
+		private int numActive;
+		private final int[] visited;
+		// made on the first PARALLEL run
+		private AtomicIntegerArray parallelVisited;
+		private int stamp;
+		private final int[] candidates;
+		private final int[] nodesChanged;
+		private final int[] activeWeight;
+		// active node count at the end of each generation so far
+		private int[] generationEnds = new int[16];
+		private int numGenerations;
+		// work counters of the current generation, only kept while a
+		// CascadeRecorder wants them
+		private boolean counting;
+		private long nodesEvaluated;
+		private long edgesScanned;
+
+		Scratch(int numNodes) {
+			isActive = new boolean[numNodes];
+			activeNodes = new int[numNodes];
+			visited = new int[numNodes];
+			candidates = new int[numNodes];
+			nodesChanged = new int[numNodes];
+			activeWeight = new int[numNodes];
+		}
+
+		private void add(int node) {
+			if (!isActive[node]) {
+				isActive[node] = true;
+				activeNodes[numActive++] = node;
+			}
+		}
+
+		private void endGeneration() {
+			if (numGenerations == generationEnds.length) {
+				generationEnds = Arrays.copyOf(generationEnds, numGenerations * 2);
+			}
+			generationEnds[numGenerations++] = numActive;
+		}
+
+		private int nextStamp() {
+			if (stamp == Integer.MAX_VALUE) {
+				Arrays.fill(visited, 0);
+				if (parallelVisited != null) {
+					for (int i = 0; i < parallelVisited.length(); i++) {
+						parallelVisited.set(i, 0);
+					}
+				}
+				stamp = 0;
+			}
+			return ++stamp;
+		}
+
+		private AtomicIntegerArray parallelVisited() {
+			if (parallelVisited == null) {
+				parallelVisited = new AtomicIntegerArray(visited.length);
+			}
+			return parallelVisited;
+		}
+
+		/**
+		 * Resets the arrays for the next run, touching only the entries the last
+		 * run could have set: the active nodes and their followers
+		 */
+		private void clear(CsrGraph graph) {
+			for (int a = 0; a < numActive; a++) {
+				int activeNode = activeNodes[a];
+				isActive[activeNode] = false;
+				for (int k = graph.followerStart(activeNode); k < graph.followerEnd(activeNode); k++) {
+					activeWeight[graph.followerAt(k)] = 0;
+				}
+			}
+			numActive = 0;
+			numGenerations = 0;
+		}
+	}
+
 }
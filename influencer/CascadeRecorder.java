@@ -0,0 +1,115 @@
+package influencer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Times the generations of one cascade run and reports them to a listener
+ * and/or as flight recorder events. Only created when one of them wants the
+ * metrics, so a run without either pays a null check per generation
+ *
+ * @author Hillary
+ */
+final class CascadeRecorder {
+
+	private static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+
+	private final CascadeListener listener;
+	private final boolean recordEvents;
+	private final CascadeModelingWithInfluencers.Engine engine;
+	private CascadeGenerationEvent event;
+	private long start;
+	private long resultStart;
+	private long allocatedAtStart;
+	private long workerBytes;
+
+	private CascadeRecorder(CascadeListener listener, boolean recordEvents,
+			CascadeModelingWithInfluencers.Engine engine) {
+		this.listener = listener;
+		this.recordEvents = recordEvents;
+		this.engine = engine;
+	}
+
+	/**
+	 * @param listener -- listener of the cascade, may be null
+	 * @param engine   -- engine of the cascade
+	 * @return recorder for one run, or null if nobody wants the metrics
+	 */
+	static CascadeRecorder start(CascadeListener listener, CascadeModelingWithInfluencers.Engine engine) {
+		boolean listening = listener != null && listener.isEnabled();
+		boolean recordEvents = CascadeGenerationEvent.isTypeEnabled();
+		if (!listening && !recordEvents) {
+			return null;
+		}
+		return new CascadeRecorder(listening ? listener : null, recordEvents, engine);
+	}
+
+	void beginGeneration() {
+		if (recordEvents) {
+			event = new CascadeGenerationEvent();
+			event.begin();
+		}
+		resultStart = 0;
+		workerBytes = 0;
+		allocatedAtStart = threadAllocatedBytes();
+		start = System.nanoTime();
+	}
+
+	/**
+	 * Adds what a fork join worker allocated for the current generation, so the
+	 * PARALLEL engine reports the allocations of every thread it ran on
+	 *
+	 * @param bytes -- bytes the worker allocated
+	 */
+	void addWorkerBytes(long bytes) {
+		workerBytes += bytes;
+	}
+
+	void beginResult() {
+		resultStart = System.nanoTime();
+	}
+
+	void endGeneration(int generation, long nodesEvaluated, long edgesScanned, int newlyActivated,
+			int totalActive) {
+		long end = System.nanoTime();
+		long resultNanos = resultStart == 0 ? 0 : end - resultStart;
+		long allocated = allocatedAtStart < 0 ? -1 : threadAllocatedBytes() - allocatedAtStart + workerBytes;
+		if (recordEvents) {
+			event.engine = engine.name();
+			event.generation = generation;
+			event.resultNanos = resultNanos;
+			event.nodesEvaluated = nodesEvaluated;
+			event.edgesScanned = edgesScanned;
+			event.newlyActivated = newlyActivated;
+			event.totalActive = totalActive;
+			event.bytesAllocated = allocated;
+			event.commit();
+			event = null;
+		}
+		if (listener != null) {
+			listener.generationFinished(new GenerationMetrics(engine, generation, end - start, resultNanos,
+					nodesEvaluated, edgesScanned, newlyActivated, totalActive, allocated));
+		}
+	}
+
+	/**
+	 * @return the calling thread's allocation counter, -1 if the JVM has none
+	 */
+	static long threadAllocatedBytes() {
+		return THREADS == null ? -1 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	// helper to the static initializer that finds the HotSpot thread bean with
+	// allocation counting turned on
+	private static com.sun.management.ThreadMXBean allocationBean() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+			if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+				return hotspot;
+			}
+		}
+		return null;
+	}
+
+}
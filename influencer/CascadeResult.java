@@ -0,0 +1,290 @@
+package influencer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Columnar result of one cascade run. Every activated node's dense index is
+ * kept in one int array in activation order, seeds first, with the end of each
+ * generation in a second array; generation 0 is the seeds. Asking when a node
+ * activated uses a per node generation array built on the first query.
+ *
+ * The binary form is little endian:
+ *
+ * <pre>
+ * header:      magic, version, numGenerations, numActive
+ * generations: generationEnds[numGenerations]
+ * nodes:       node numbers in activation order[numActive]
+ * </pre>
+ *
+ * @author Hillary
+ */
+public final class CascadeResult {
+
+	/**
+	 * Receives every activated node of forEachActivation
+	 */
+	public interface ActivationVisitor {
+		void visit(int nodeNum, int generation);
+	}
+
+	private static final int MAGIC = 0x52435343;
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 16;
+	private static final int BUFFER_BYTES = 1 << 16;
+
+	private final CsrGraph graph;
+	private final int[] activated;
+	private final int[] generationEnds;
+	private final int numGenerations;
+	private int[] generationOf;
+
+	/**
+	 * @param graph          -- graph the cascade ran on
+	 * @param activated      -- dense indices in activation order, not copied
+	 * @param generationEnds -- how many nodes were active after each generation,
+	 *                       not copied
+	 * @param numGenerations -- how many entries of generationEnds are used
+	 */
+	CascadeResult(CsrGraph graph, int[] activated, int[] generationEnds, int numGenerations) {
+		this.graph = graph;
+		this.activated = activated;
+		this.generationEnds = generationEnds;
+		this.numGenerations = numGenerations;
+	}
+
+	/**
+	 * @return generations in the result, the seeds' generation 0 included
+	 */
+	public int getNumGenerations() {
+		return numGenerations;
+	}
+
+	/**
+	 * @return how many nodes are active at the end, seeds included
+	 */
+	public int getTotalActive() {
+		return numGenerations == 0 ? 0 : generationEnds[numGenerations - 1];
+	}
+
+	/**
+	 * @param generation -- 0 for the seeds
+	 * @return how many nodes were active after the generation, the key the map
+	 *         result uses
+	 */
+	public int getTotalActive(int generation) {
+		checkGeneration(generation);
+		return generationEnds[generation];
+	}
+
+	/**
+	 * @param generation -- 0 for the seeds
+	 * @return how many nodes became active in the generation
+	 */
+	public int getNewlyActiveCount(int generation) {
+		checkGeneration(generation);
+		return generationEnds[generation] - generationStart(generation);
+	}
+
+	/**
+	 * @param generation -- 0 for the seeds
+	 * @return node numbers that became active in the generation
+	 */
+	public int[] getNewlyActive(int generation) {
+		checkGeneration(generation);
+		int start = generationStart(generation);
+		int[] nodeNums = new int[generationEnds[generation] - start];
+		for (int i = 0; i < nodeNums.length; i++) {
+			nodeNums[i] = graph.getNodeNum(activated[start + i]);
+		}
+		return nodeNums;
+	}
+
+	/**
+	 * Constant time once the node number is mapped to its dense index
+	 *
+	 * @param nodeNum -- node to look up
+	 * @return generation the node became active in, 0 for seeds, or -1 if it
+	 *         never did or is not in the graph
+	 */
+	public int getGeneration(int nodeNum) {
+		int index = graph.indexOf(nodeNum);
+		if (index < 0) {
+			return -1;
+		}
+		if (generationOf == null) {
+			int[] generations = new int[graph.getNumNodes()];
+			Arrays.fill(generations, -1);
+			for (int g = 0; g < numGenerations; g++) {
+				for (int i = generationStart(g); i < generationEnds[g]; i++) {
+					generations[activated[i]] = g;
+				}
+			}
+			generationOf = generations;
+		}
+		return generationOf[index];
+	}
+
+	/**
+	 * Streams every activated node in activation order without building any
+	 * collection
+	 */
+	public void forEachActivation(ActivationVisitor visitor) {
+		for (int g = 0; g < numGenerations; g++) {
+			for (int i = generationStart(g); i < generationEnds[g]; i++) {
+				visitor.visit(graph.getNodeNum(activated[i]), g);
+			}
+		}
+	}
+
+	/**
+	 * @param generations -- how many generations after the seeds to keep
+	 * @return the same run cut off after that many generations, sharing this
+	 *         result's arrays
+	 */
+	public CascadeResult firstGenerations(int generations) {
+		if (generations < 0) {
+			throw new IllegalArgumentException("Number of generations can not be negative.");
+		}
+		if (generations + 1 >= numGenerations) {
+			return this;
+		}
+		return new CascadeResult(graph, activated, generationEnds, generations + 1);
+	}
+
+	/**
+	 * @return the result in the form model() returns: total active nodes after
+	 *         each generation keyed to the set of nodes that became active in it
+	 */
+	public Map<Integer, Set<Integer>> toMap() {
+		Map<Integer, Set<Integer>> result = new LinkedHashMap<Integer, Set<Integer>>();
+		for (int g = 0; g < numGenerations; g++) {
+			Set<Integer> nodeNums = new HashSet<Integer>();
+			for (int i = generationStart(g); i < generationEnds[g]; i++) {
+				nodeNums.add(graph.getNodeNum(activated[i]));
+			}
+			result.put(generationEnds[g], nodeNums);
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the result in the binary form, replacing the file if it exists
+	 *
+	 * @param filename -- where to write
+	 * @throws IOException if the file can not be written
+	 */
+	public void save(String filename) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(numGenerations).putInt(getTotalActive());
+			for (int g = 0; g < numGenerations; g++) {
+				putInt(channel, buffer, generationEnds[g]);
+			}
+			for (int i = 0; i < getTotalActive(); i++) {
+				putInt(channel, buffer, graph.getNodeNum(activated[i]));
+			}
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	// helper to save that writes the buffer out when it is full
+	private static void putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+		if (buffer.remaining() < 4) {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+		buffer.putInt(value);
+	}
+
+	/**
+	 * Reads a result written by save
+	 *
+	 * @param filename -- file to read
+	 * @param graph    -- graph the cascade ran on
+	 * @return the result
+	 * @throws IOException if the file can not be read or is not a cascade result
+	 *                     of this graph
+	 */
+	public static CascadeResult load(String filename, CsrGraph graph) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			ByteBuffer header = readFully(channel, HEADER_BYTES);
+			if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+				throw new IOException(filename + " is not a cascade result file.");
+			}
+			int numGenerations = header.getInt();
+			int numActive = header.getInt();
+			if (numGenerations < 0 || numActive < 0
+					|| channel.size() != HEADER_BYTES + 4L * (numGenerations + (long) numActive)) {
+				throw new IOException(filename + " is truncated or damaged.");
+			}
+			int[] generationEnds = new int[numGenerations];
+			readFully(channel, 4 * numGenerations).asIntBuffer().get(generationEnds);
+			for (int g = 0; g < numGenerations; g++) {
+				if (generationEnds[g] < (g == 0 ? 0 : generationEnds[g - 1]) || generationEnds[g] > numActive) {
+					throw new IOException(filename + " is truncated or damaged.");
+				}
+			}
+			if ((numGenerations == 0 ? 0 : generationEnds[numGenerations - 1]) != numActive) {
+				throw new IOException(filename + " is truncated or damaged.");
+			}
+			int[] activated = new int[numActive];
+			readFully(channel, 4 * numActive).asIntBuffer().get(activated);
+			for (int i = 0; i < numActive; i++) {
+				int index = graph.indexOf(activated[i]);
+				if (index < 0) {
+					throw new IOException("Node " + activated[i] + " of " + filename + " is not in the graph.");
+				}
+				activated[i] = index;
+			}
+			return new CascadeResult(graph, activated, generationEnds, numGenerations);
+		}
+	}
+
+	// helper to load that reads the next length bytes of the file
+	private static ByteBuffer readFully(FileChannel channel, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new IOException("Unexpected end of file.");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	// helper that finds where a generation starts in activated
+	private int generationStart(int generation) {
+		return generation == 0 ? 0 : generationEnds[generation - 1];
+	}
+
+	// helper that rejects generations not in the result
+	private void checkGeneration(int generation) {
+		if (generation < 0 || generation >= numGenerations) {
+			throw new IllegalArgumentException("Generation " + generation + " is not in the result.");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Cascade result with " + getTotalActive() + " active nodes after " + (numGenerations - 1)
+				+ " generations";
+	}
+
+}
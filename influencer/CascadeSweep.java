@@ -0,0 +1,216 @@
+package influencer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs a grid of cascade scenarios (reward ratios x seed sets x iterations)
+ * concurrently on a bounded thread pool. Each thread reuses one set of cascade
+ * working arrays, and each finished scenario is handed to a Sink on the calling
+ * thread as soon as it is done.
+ *
+ * Work is shared between scenarios that are bound to give the same cascade:
+ * scenarios with the same seeds and the same reward probability (1:2 and 2:4,
+ * for example) are run once, with the largest number of iterations asked for,
+ * and the shorter runs are the first generations of that result.
+ *
+ * @author Hillary
+ */
+public class CascadeSweep {
+
+	/**
+	 * Receives each scenario's result as it finishes. Called on the thread that
+	 * runs the sweep, so it does not have to be thread safe. Scenarios that
+	 * shared a run get views of the same arrays
+	 */
+	public interface Sink {
+		void accept(Scenario scenario, CascadeResult result);
+	}
+
+	/**
+	 * One set of arguments to CascadeModelingWithInfluencers.model
+	 */
+	public static final class Scenario {
+		private final int iterations;
+		private final List<Integer> seeds;
+		private final int rewardForInertia;
+		private final int rewardForChange;
+
+		/**
+		 * @param iterations       how many generations of cascade should be tested
+		 * @param seeds            influential nodes seeded concurrently
+		 * @param rewardForInertia reward given for remaining inactive
+		 * @param rewardForChange  reward given for changing behavior
+		 */
+		public Scenario(int iterations, List<Integer> seeds, int rewardForInertia, int rewardForChange) {
+			this.iterations = iterations;
+			this.seeds = Collections.unmodifiableList(new ArrayList<Integer>(seeds));
+			this.rewardForInertia = rewardForInertia;
+			this.rewardForChange = rewardForChange;
+		}
+
+		public int getIterations() {
+			return iterations;
+		}
+
+		public List<Integer> getSeeds() {
+			return seeds;
+		}
+
+		public int getRewardForInertia() {
+			return rewardForInertia;
+		}
+
+		public int getRewardForChange() {
+			return rewardForChange;
+		}
+
+		@Override
+		public String toString() {
+			return "Scenario with seeds " + seeds + ", rewards " + rewardForInertia + ":" + rewardForChange + " and "
+					+ iterations + " iterations";
+		}
+	}
+
+	private final CsrGraph graph;
+	private final int threads;
+
+	/**
+	 * @param graph   -- frozen graph to run the cascades on
+	 * @param threads -- most scenarios run at once
+	 */
+	public CascadeSweep(CsrGraph graph, int threads) {
+		if (threads <= 0) {
+			throw new IllegalArgumentException("Number of threads must be a positive integer.");
+		}
+		this.graph = graph;
+		this.threads = threads;
+	}
+
+	/**
+	 * Builds the full grid of scenarios
+	 *
+	 * @param iterations -- generation counts to try
+	 * @param seedSets   -- seed sets to try
+	 * @param rewards    -- pairs of {rewardForInertia, rewardForChange} to try
+	 * @return one scenario for every combination
+	 */
+	public static List<Scenario> grid(int[] iterations, List<List<Integer>> seedSets, int[][] rewards) {
+		List<Scenario> scenarios = new ArrayList<Scenario>();
+		for (int[] reward : rewards) {
+			for (List<Integer> seeds : seedSets) {
+				for (int iteration : iterations) {
+					scenarios.add(new Scenario(iteration, seeds, reward[0], reward[1]));
+				}
+			}
+		}
+		return scenarios;
+	}
+
+	/**
+	 * @param influencers -- ranked influential nodes, as from findInfluencers
+	 * @return the seed sets of the top 1, top 2, ... top k influencers
+	 */
+	public static List<List<Integer>> topSeedSets(List<Integer> influencers) {
+		List<List<Integer>> seedSets = new ArrayList<List<Integer>>(influencers.size());
+		for (int k = 1; k <= influencers.size(); k++) {
+			seedSets.add(new ArrayList<Integer>(influencers.subList(0, k)));
+		}
+		return seedSets;
+	}
+
+	/**
+	 * Runs every scenario and hands each result to the sink
+	 *
+	 * @param scenarios -- what to run
+	 * @param sink      -- receives each scenario with its result, in order of
+	 *                  completion
+	 * @throws InterruptedException if interrupted while waiting for results
+	 */
+	public void run(List<Scenario> scenarios, Sink sink) throws InterruptedException {
+		Map<String, List<Scenario>> groups = groupSharedRuns(scenarios);
+		CascadeModelingWithInfluencers cascade = new CascadeModelingWithInfluencers(graph,
+				CascadeModelingWithInfluencers.Engine.INCREMENTAL);
+		ScratchPool<CascadeModelingWithInfluencers.Scratch> scratch = new ScratchPool<CascadeModelingWithInfluencers.Scratch>(
+				() -> new CascadeModelingWithInfluencers.Scratch(graph.getNumNodes()));
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, groups.size())));
+		CompletionService<SharedRun> completion = new ExecutorCompletionService<SharedRun>(executor);
+		try {
+			for (final List<Scenario> group : groups.values()) {
+				completion.submit(new Callable<SharedRun>() {
+					@Override
+					public SharedRun call() {
+						Scenario longest = group.get(0);
+						for (Scenario scenario : group) {
+							if (scenario.iterations > longest.iterations) {
+								longest = scenario;
+							}
+						}
+						CascadeModelingWithInfluencers.Scratch s = scratch.take();
+						CascadeResult result = cascade.modelResult(longest.iterations, longest.seeds,
+								longest.rewardForInertia, longest.rewardForChange, s);
+						scratch.giveBack(s);
+						return new SharedRun(group, result);
+					}
+				});
+			}
+			for (int i = 0; i < groups.size(); i++) {
+				SharedRun run = completion.take().get();
+				for (Scenario scenario : run.scenarios) {
+					sink.accept(scenario, run.result.firstGenerations(scenario.iterations));
+				}
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("Cascade scenario failed.", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	// helper to run that groups scenarios with the same seeds and the same reward
+	// probability, which only differ in how many generations they keep
+	private Map<String, List<Scenario>> groupSharedRuns(List<Scenario> scenarios) {
+		Map<String, List<Scenario>> groups = new LinkedHashMap<String, List<Scenario>>();
+		for (Scenario scenario : scenarios) {
+			if (scenario.iterations <= 0 || scenario.rewardForInertia <= 0 || scenario.rewardForChange <= 0) {
+				throw new IllegalArgumentException("Iterations and reward values must be positive integers.");
+			}
+			float rewardProbability = ((float) scenario.rewardForInertia)
+					/ (scenario.rewardForChange + scenario.rewardForInertia);
+			String key = Float.floatToIntBits(rewardProbability) + " " + scenario.seeds;
+			List<Scenario> group = groups.get(key);
+			if (group == null) {
+				group = new ArrayList<Scenario>();
+				groups.put(key, group);
+			}
+			group.add(scenario);
+		}
+		return groups;
+	}
+
+	/**
+	 * One cascade run with the scenarios it answers
+	 */
+	private static final class SharedRun {
+		private final List<Scenario> scenarios;
+		private final CascadeResult result;
+
+		private SharedRun(List<Scenario> scenarios, CascadeResult result) {
+			this.scenarios = scenarios;
+			this.result = result;
+		}
+	}
+
+}
@@ -0,0 +1,303 @@
+package influencer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Estimates betweenness and harmonic closeness centrality along the direction
+ * information flows, from a node to its followers, by running searches from a
+ * random sample of pivot nodes instead of from every node.
+ *
+ * Betweenness is Brandes' algorithm from each pivot, with the pair
+ * dependencies scaled up by nodes / pivots. Closeness is harmonic: for a node
+ * v, the sum of 1 / distance from v to every other node, divided by nodes - 1;
+ * it is estimated by a search back along the nodes followed from each pivot.
+ * With pivots = ln(2 n / delta) / (2 epsilon^2), every node's normalized
+ * betweenness and closeness are within epsilon of the exact value with
+ * probability at least 1 - delta, however large the graph. If that is at
+ * least the number of nodes every node is a pivot and the result is exact.
+ *
+ * Pivots are drawn from the seed and split into fixed size chunks that run on
+ * a fork join pool. Each thread adds into its own accumulators, which are
+ * summed at the end, so different thread counts can differ in the last bits.
+ *
+ * @author Hillary
+ */
+public final class CentralityEstimator {
+
+	public static final double DEFAULT_DELTA = 0.1;
+
+	// pivots searched by one fork join task
+	private static final int PIVOTS_PER_TASK = 16;
+
+	private final CsrGraph graph;
+	// nodes of the graph to analyze, or null for all of them
+	private final long[] members;
+	private final int numMembers;
+	private final ForkJoinPool pool;
+
+	/**
+	 * @param graph -- frozen graph to analyze
+	 */
+	public CentralityEstimator(CsrGraph graph) {
+		this(graph, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param graph -- frozen graph to analyze
+	 * @param pool  -- threads for the searches, null to run them on the calling
+	 *              thread
+	 */
+	public CentralityEstimator(CsrGraph graph, ForkJoinPool pool) {
+		this(graph, null, graph.getNumNodes(), pool);
+	}
+
+	/**
+	 * Analyzes only the nodes in a bitmap over the dense indices of the graph,
+	 * as kept by an InfluencerGraph view
+	 */
+	CentralityEstimator(CsrGraph graph, long[] members, int numMembers, ForkJoinPool pool) {
+		this.graph = graph;
+		this.members = members;
+		this.numMembers = numMembers;
+		this.pool = pool;
+	}
+
+	/**
+	 * @param numNodes -- nodes in the graph
+	 * @param epsilon  -- most error of a normalized score
+	 * @param delta    -- chance of any score missing by more than epsilon
+	 * @return pivots needed for the error bound, at most numNodes
+	 */
+	public static int pivotsFor(int numNodes, double epsilon, double delta) {
+		if (!(epsilon > 0 && epsilon < 1) || !(delta > 0 && delta < 1)) {
+			throw new IllegalArgumentException("Epsilon and delta must be between 0 and 1.");
+		}
+		double pivots = Math.ceil(Math.log(2.0 * Math.max(numNodes, 1) / delta) / (2 * epsilon * epsilon));
+		return (int) Math.min(numNodes, pivots);
+	}
+
+	/**
+	 * @param epsilon -- most error of a normalized score, with probability 1 -
+	 *                DEFAULT_DELTA
+	 * @param seed    -- random seed for the pivots
+	 * @return estimated scores of every node
+	 */
+	public CentralityScores estimate(double epsilon, long seed) {
+		return estimate(epsilon, DEFAULT_DELTA, seed);
+	}
+
+	/**
+	 * @param epsilon -- most error of a normalized score
+	 * @param delta   -- chance of any score missing by more than epsilon
+	 * @param seed    -- random seed for the pivots
+	 * @return estimated scores of every node
+	 */
+	public CentralityScores estimate(double epsilon, double delta, long seed) {
+		return run(pivotsFor(numMembers, epsilon, delta), seed);
+	}
+
+	/**
+	 * Uses every node as a pivot. Takes a search per node, so only for small
+	 * graphs
+	 *
+	 * @return exact scores of every node
+	 */
+	public CentralityScores exact() {
+		return run(numMembers, 0);
+	}
+
+	// helper to estimate and exact that searches from the pivots and scales the
+	// accumulated sums
+	private CentralityScores run(int numPivots, long seed) {
+		int numNodes = graph.getNumNodes();
+		int[] pivots = new int[numMembers];
+		int size = 0;
+		for (int i = 0; i < numNodes; i++) {
+			if (isMember(i)) {
+				pivots[size++] = i;
+			}
+		}
+		if (numPivots < numMembers) {
+			// the first numPivots entries of a partial shuffle are a uniform sample
+			SplittableRandom random = new SplittableRandom(seed);
+			for (int i = 0; i < numPivots; i++) {
+				int j = i + random.nextInt(numMembers - i);
+				int swap = pivots[i];
+				pivots[i] = pivots[j];
+				pivots[j] = swap;
+			}
+		}
+		List<Scratch> accumulators = Collections.synchronizedList(new ArrayList<Scratch>());
+		ScratchPool<Scratch> scratch = new ScratchPool<Scratch>(() -> {
+			Scratch s = new Scratch(numNodes);
+			accumulators.add(s);
+			return s;
+		});
+		List<PivotChunk> chunks = new ArrayList<PivotChunk>();
+		for (int start = 0; start < numPivots; start += PIVOTS_PER_TASK) {
+			chunks.add(new PivotChunk(pivots, start, Math.min(numPivots, start + PIVOTS_PER_TASK), scratch));
+		}
+		ChunkRunner.run(pool, chunks);
+		double[] betweenness = new double[numNodes];
+		double[] closeness = new double[numNodes];
+		for (Scratch s : accumulators) {
+			for (int i = 0; i < numNodes; i++) {
+				betweenness[i] += s.betweenness[i];
+				closeness[i] += s.closeness[i];
+			}
+		}
+		double scale = numPivots == 0 ? 0 : (double) numMembers / numPivots;
+		double closenessScale = numMembers < 2 ? 0 : scale / (numMembers - 1);
+		for (int i = 0; i < numNodes; i++) {
+			betweenness[i] *= scale;
+			closeness[i] *= closenessScale;
+		}
+		return new CentralityScores(graph, numMembers, betweenness, closeness, numPivots);
+	}
+
+	// helper that checks a dense index is part of the graph being analyzed
+	private boolean isMember(int index) {
+		return members == null || (members[index >>> 6] & (1L << index)) != 0;
+	}
+
+	// helper to PivotChunk: Brandes' search from the pivot over follower edges,
+	// then dependencies added back in reverse search order. The predecessors of
+	// a node are the nodes it follows that are one step closer to the pivot
+	private void addBetweenness(int pivot, Scratch s) {
+		int stamp = s.nextStamp();
+		s.seen[pivot] = stamp;
+		s.distance[pivot] = 0;
+		s.paths[pivot] = 1;
+		s.dependency[pivot] = 0;
+		s.order[0] = pivot;
+		int size = 1;
+		for (int q = 0; q < size; q++) {
+			int node = s.order[q];
+			for (int k = graph.followerStart(node); k < graph.followerEnd(node); k++) {
+				int follower = graph.followerAt(k);
+				if (s.seen[follower] != stamp) {
+					if (!isMember(follower)) {
+						continue;
+					}
+					s.seen[follower] = stamp;
+					s.distance[follower] = s.distance[node] + 1;
+					s.paths[follower] = 0;
+					s.dependency[follower] = 0;
+					s.order[size++] = follower;
+				}
+				if (s.distance[follower] == s.distance[node] + 1) {
+					s.paths[follower] += s.paths[node];
+				}
+			}
+		}
+		for (int q = size - 1; q > 0; q--) {
+			int node = s.order[q];
+			double share = (1 + s.dependency[node]) / s.paths[node];
+			for (int k = graph.followedStart(node); k < graph.followedEnd(node); k++) {
+				int followed = graph.followedAt(k);
+				if (s.seen[followed] == stamp && s.distance[followed] == s.distance[node] - 1) {
+					s.dependency[followed] += s.paths[followed] * share;
+				}
+			}
+			s.betweenness[node] += s.dependency[node];
+		}
+	}
+
+	// helper to PivotChunk: search back from the pivot over followed edges,
+	// which finds the distance from every node to the pivot
+	private void addCloseness(int pivot, Scratch s) {
+		int stamp = s.nextStamp();
+		s.seen[pivot] = stamp;
+		s.distance[pivot] = 0;
+		s.order[0] = pivot;
+		int size = 1;
+		for (int q = 0; q < size; q++) {
+			int node = s.order[q];
+			int next = s.distance[node] + 1;
+			for (int k = graph.followedStart(node); k < graph.followedEnd(node); k++) {
+				int followed = graph.followedAt(k);
+				if (s.seen[followed] != stamp && isMember(followed)) {
+					s.seen[followed] = stamp;
+					s.distance[followed] = next;
+					s.order[size++] = followed;
+					s.closeness[followed] += 1.0 / next;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Searches from a fixed range of the pivots into the accumulators it takes
+	 * from the run's scratch pool
+	 */
+	private final class PivotChunk extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int[] pivots;
+		private final int start;
+		private final int end;
+		private final ScratchPool<Scratch> scratch;
+
+		private PivotChunk(int[] pivots, int start, int end, ScratchPool<Scratch> scratch) {
+			this.pivots = pivots;
+			this.start = start;
+			this.end = end;
+			this.scratch = scratch;
+		}
+
+		@Override
+		protected void compute() {
+			Scratch s = scratch.take();
+			for (int p = start; p < end; p++) {
+				addBetweenness(pivots[p], s);
+				addCloseness(pivots[p], s);
+			}
+			scratch.giveBack(s);
+		}
+	}
+
+	/**
+	 * Search arrays and score accumulators of one chunk at a time, indexed by dense node
+	 * index. Each search takes a new stamp, so the search arrays never have to
+	 * be cleared
+	 */
+	private static final class Scratch {
+		private final int[] seen;
+		private final int[] distance;
+		private final double[] paths;
+		private final double[] dependency;
+		private final int[] order;
+		private final double[] betweenness;
+		private final double[] closeness;
+		private int stamp;
+
+		private Scratch(int numNodes) {
+			seen = new int[numNodes];
+			distance = new int[numNodes];
+			paths = new double[numNodes];
+			dependency = new double[numNodes];
+			order = new int[numNodes];
+			betweenness = new double[numNodes];
+			closeness = new double[numNodes];
+		}
+
+		private int nextStamp() {
+			if (stamp == Integer.MAX_VALUE) {
+				Arrays.fill(seen, 0);
+				stamp = 0;
+			}
+			return ++stamp;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Centrality estimator over " + numMembers + " nodes of " + graph;
+	}
+
+}
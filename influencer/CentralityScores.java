@@ -0,0 +1,108 @@
+package influencer;
+
+import java.util.List;
+
+/**
+ * Betweenness and harmonic closeness of every node, from a
+ * CentralityEstimator. Nodes outside the analyzed part of the graph score 0.
+ *
+ * @author Hillary
+ */
+public final class CentralityScores {
+
+	private final CsrGraph graph;
+	private final int numMembers;
+	private final double[] betweenness;
+	private final double[] closeness;
+	private final int numPivots;
+
+	CentralityScores(CsrGraph graph, int numMembers, double[] betweenness, double[] closeness, int numPivots) {
+		this.graph = graph;
+		this.numMembers = numMembers;
+		this.betweenness = betweenness;
+		this.closeness = closeness;
+		this.numPivots = numPivots;
+	}
+
+	/**
+	 * @param nodeNum -- node to look up
+	 * @return estimated number of shortest paths between other nodes that pass
+	 *         through the node, each split evenly when there are several
+	 */
+	public double getBetweenness(int nodeNum) {
+		return betweenness[index(nodeNum)];
+	}
+
+	/**
+	 * @param nodeNum -- node to look up
+	 * @return betweenness divided by the number of ordered pairs of other nodes,
+	 *         between 0 and 1
+	 */
+	public double getNormalizedBetweenness(int nodeNum) {
+		double pairs = (double) (numMembers - 1) * (numMembers - 2);
+		return pairs <= 0 ? 0 : getBetweenness(nodeNum) / pairs;
+	}
+
+	/**
+	 * @param nodeNum -- node to look up
+	 * @return estimated sum of 1 / distance from the node to every other node,
+	 *         over nodes - 1, between 0 and 1
+	 */
+	public double getCloseness(int nodeNum) {
+		return closeness[index(nodeNum)];
+	}
+
+	/**
+	 * @param howMany -- how many bridges to find
+	 * @return node numbers with the highest betweenness, highest first. Ties go
+	 *         to the lower node number
+	 */
+	public List<Integer> topBetweenness(int howMany) {
+		return graph.findInfluencers(Math.min(howMany, numMembers), g -> toFloats(betweenness));
+	}
+
+	/**
+	 * @param howMany -- how many nodes to find
+	 * @return node numbers with the highest closeness, highest first. Ties go to
+	 *         the lower node number
+	 */
+	public List<Integer> topCloseness(int howMany) {
+		return graph.findInfluencers(Math.min(howMany, numMembers), g -> toFloats(closeness));
+	}
+
+	/**
+	 * @return pivots searched, the number of nodes analyzed if exact
+	 */
+	public int getNumPivots() {
+		return numPivots;
+	}
+
+	public boolean isExact() {
+		return numPivots == numMembers;
+	}
+
+	// helper that maps a node number to its index, rejecting unknown nodes
+	private int index(int nodeNum) {
+		int index = graph.indexOf(nodeNum);
+		if (index < 0) {
+			throw new IllegalArgumentException("Node " + nodeNum + " is not in the graph.");
+		}
+		return index;
+	}
+
+	// helper to the top methods that gives the scores in the scorer form
+	private static float[] toFloats(double[] scores) {
+		float[] floats = new float[scores.length];
+		for (int i = 0; i < scores.length; i++) {
+			floats[i] = (float) scores[i];
+		}
+		return floats;
+	}
+
+	@Override
+	public String toString() {
+		return (isExact() ? "Exact" : "Estimated") + " centrality of " + numMembers + " nodes from " + numPivots
+				+ " pivots";
+	}
+
+}
@@ -0,0 +1,43 @@
+package influencer;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs every chunk of one parallel pass and returns once all are done. The
+ * classes that split their work into fork join chunks all go through run, so
+ * a null pool means the same thing everywhere: run on the calling thread
+ *
+ * @author Hillary
+ */
+final class ChunkRunner extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	private final List<? extends RecursiveAction> chunks;
+
+	private ChunkRunner(List<? extends RecursiveAction> chunks) {
+		this.chunks = chunks;
+	}
+
+	/**
+	 * @param pool   -- threads to run the chunks on, null to run them one after
+	 *               another on the calling thread
+	 * @param chunks -- chunks of the pass
+	 */
+	static void run(ForkJoinPool pool, List<? extends RecursiveAction> chunks) {
+		if (pool == null) {
+			// invoke runs a task on the calling thread when it is not in a pool
+			for (RecursiveAction chunk : chunks) {
+				chunk.invoke();
+			}
+		} else {
+			pool.invoke(new ChunkRunner(chunks));
+		}
+	}
+
+	@Override
+	protected void compute() {
+		ForkJoinTask.invokeAll(chunks);
+	}
+}
@@ -0,0 +1,129 @@
+package influencer;
+
+import java.util.Arrays;
+
+/**
+ * A split of a frozen graph into communities, kept as one int array from dense
+ * node index to community. Communities are numbered 0..n-1 in the order their
+ * lowest node number appears, so the same split always gets the same numbers.
+ * Built by GraphComponents.
+ *
+ * @author Hillary
+ */
+public final class Communities {
+
+	private final CsrGraph graph;
+	private final int[] communityOf;
+	private final int[] sizes;
+
+	/**
+	 * @param graph  -- graph that was split
+	 * @param labels -- any label per dense index, nodes with the same label are
+	 *               one community. Renumbered in place and kept
+	 */
+	Communities(CsrGraph graph, int[] labels) {
+		this.graph = graph;
+		int[] number = new int[labels.length];
+		Arrays.fill(number, -1);
+		int numCommunities = 0;
+		for (int i = 0; i < labels.length; i++) {
+			if (number[labels[i]] < 0) {
+				number[labels[i]] = numCommunities++;
+			}
+			labels[i] = number[labels[i]];
+		}
+		this.communityOf = labels;
+		this.sizes = new int[numCommunities];
+		for (int community : labels) {
+			sizes[community]++;
+		}
+	}
+
+	public int getNumCommunities() {
+		return sizes.length;
+	}
+
+	/**
+	 * @param nodeNum -- node to look up
+	 * @return community of the node
+	 */
+	public int getCommunity(int nodeNum) {
+		int index = graph.indexOf(nodeNum);
+		if (index < 0) {
+			throw new IllegalArgumentException("Node " + nodeNum + " is not in the graph.");
+		}
+		return communityOf[index];
+	}
+
+	/**
+	 * @return how many nodes are in the community
+	 */
+	public int getSize(int community) {
+		checkCommunity(community);
+		return sizes[community];
+	}
+
+	/**
+	 * @return the community with the most nodes, the lowest numbered of ties
+	 */
+	public int getLargest() {
+		int largest = 0;
+		for (int c = 1; c < sizes.length; c++) {
+			if (sizes[c] > sizes[largest]) {
+				largest = c;
+			}
+		}
+		return largest;
+	}
+
+	/**
+	 * @return node numbers of the community, ascending
+	 */
+	public int[] getNodeNums(int community) {
+		checkCommunity(community);
+		int[] nodeNums = new int[sizes[community]];
+		int size = 0;
+		for (int i = 0; i < communityOf.length; i++) {
+			if (communityOf[i] == community) {
+				nodeNums[size++] = graph.getNodeNum(i);
+			}
+		}
+		return nodeNums;
+	}
+
+	/**
+	 * The form CsrGraph.findInfluencers and CascadeModelingWithInfluencers take
+	 * to restrict their work to one community
+	 *
+	 * @return community of every dense index of the graph, not copied
+	 */
+	public int[] getCommunityArray() {
+		return communityOf;
+	}
+
+	/**
+	 * @return the community with only the edges inside it, as its own graph
+	 */
+	public CsrGraph subgraph(int community) {
+		checkCommunity(community);
+		return GraphComponents.restrict(graph, communityOf, community);
+	}
+
+	public CsrGraph getGraph() {
+		return graph;
+	}
+
+	// helper that rejects communities that do not exist
+	private void checkCommunity(int community) {
+		if (community < 0 || community >= sizes.length) {
+			throw new IllegalArgumentException("Community " + community + " does not exist.");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return sizes.length + " communities of " + graph + ", largest " + (sizes.length == 0 ? 0 : sizes[getLargest()])
+				+ " nodes";
+	}
+
+}
@@ -0,0 +1,501 @@
+package influencer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable compressed sparse row (CSR) representation of a Graph. Node numbers
+ * are mapped to dense indices 0..n-1 in ascending order of node number and the
+ * edges in both directions are stored in primitive arrays: an offsets array of
+ * length n + 1, a targets array and a weights array. The neighbours of the node
+ * at index i are the entries between offsets[i] (inclusive) and offsets[i + 1]
+ * (exclusive), sorted by index.
+ *
+ * Built from the mutable Graph with Graph.freeze() or reopened from a file
+ * written by GraphSnapshot, in which case the arrays are read straight from the
+ * memory mapped file.
+ *
+ * @author Hillary
+ */
+public final class CsrGraph {
+
+	private final IntColumn nodeNums;
+	private final IntColumn followerOffsets;
+	private final IntColumn followers;
+	private final IntColumn followerWeights;
+	private final IntColumn followedOffsets;
+	private final IntColumn followed;
+	private final IntColumn followedWeights;
+	private final IntColumn totalTimesRetweeted;
+	private final IntColumn totalRetweetsMade;
+
+	/**
+	 * @param nodeNums        -- node numbers sorted ascending, index is dense id
+	 * @param followerOffsets -- row offsets of the follower (in edge) direction
+	 * @param followers       -- dense index of each follower
+	 * @param followerWeights -- times the follower retweeted the row's node
+	 * @param followedOffsets -- row offsets of the followed (out edge) direction
+	 * @param followed        -- dense index of each node followed
+	 * @param followedWeights -- times the row's node retweeted the followed node
+	 */
+	CsrGraph(int[] nodeNums, int[] followerOffsets, int[] followers, int[] followerWeights, int[] followedOffsets,
+			int[] followed, int[] followedWeights) {
+		this(IntColumn.of(nodeNums), IntColumn.of(followerOffsets), IntColumn.of(followers),
+				IntColumn.of(followerWeights), IntColumn.of(followedOffsets), IntColumn.of(followed),
+				IntColumn.of(followedWeights), IntColumn.of(rowSums(followerOffsets, followerWeights)),
+				IntColumn.of(rowSums(followedOffsets, followedWeights)));
+	}
+
+	/**
+	 * Same as the array constructor for columns that are already laid out, with
+	 * the per node totals of the weights supplied instead of summed
+	 */
+	CsrGraph(IntColumn nodeNums, IntColumn followerOffsets, IntColumn followers, IntColumn followerWeights,
+			IntColumn followedOffsets, IntColumn followed, IntColumn followedWeights, IntColumn totalTimesRetweeted,
+			IntColumn totalRetweetsMade) {
+		this.nodeNums = nodeNums;
+		this.followerOffsets = followerOffsets;
+		this.followers = followers;
+		this.followerWeights = followerWeights;
+		this.followedOffsets = followedOffsets;
+		this.followed = followed;
+		this.followedWeights = followedWeights;
+		this.totalTimesRetweeted = totalTimesRetweeted;
+		this.totalRetweetsMade = totalRetweetsMade;
+	}
+
+	/**
+	 * Builds the CSR arrays from the node map of a Graph. The followed rows are
+	 * filled straight from each node's map and then transposed twice so that both
+	 * directions end up sorted by index without a per row sort.
+	 */
+	static CsrGraph fromNodes(Map<Integer, GraphNode> nodes) {
+		int[] nodeNums = new int[nodes.size()];
+		int i = 0;
+		for (int nodeNum : nodes.keySet()) {
+			nodeNums[i++] = nodeNum;
+		}
+		Arrays.sort(nodeNums);
+		int numNodes = nodeNums.length;
+		int[] offsets = new int[numNodes + 1];
+		for (i = 0; i < numNodes; i++) {
+			offsets[i + 1] = offsets[i] + nodes.get(nodeNums[i]).getNumNodesIFollow();
+		}
+		int[] targets = new int[offsets[numNodes]];
+		int[] weights = new int[offsets[numNodes]];
+		GraphNode.EdgeCursor edge = new GraphNode.EdgeCursor();
+		for (i = 0; i < numNodes; i++) {
+			int k = offsets[i];
+			for (edge.overNodesIFollow(nodes.get(nodeNums[i])); edge.next();) {
+				targets[k] = Arrays.binarySearch(nodeNums, edge.nodeNum());
+				weights[k] = edge.weight();
+				k++;
+			}
+		}
+		int[][] followerRows = transpose(numNodes, offsets, targets, weights);
+		int[][] followedRows = transpose(numNodes, followerRows[0], followerRows[1], followerRows[2]);
+		return new CsrGraph(nodeNums, followerRows[0], followerRows[1], followerRows[2], followedRows[0],
+				followedRows[1], followedRows[2]);
+	}
+
+	// helper to fromNodes that reverses the direction of every edge. Rows of the
+	// result are sorted because source rows are visited in index order
+	private static int[][] transpose(int numNodes, int[] offsets, int[] targets, int[] weights) {
+		int[] newOffsets = new int[numNodes + 1];
+		for (int target : targets) {
+			newOffsets[target + 1]++;
+		}
+		for (int i = 0; i < numNodes; i++) {
+			newOffsets[i + 1] += newOffsets[i];
+		}
+		int[] next = Arrays.copyOf(newOffsets, numNodes);
+		int[] newTargets = new int[targets.length];
+		int[] newWeights = new int[targets.length];
+		for (int i = 0; i < numNodes; i++) {
+			for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+				int slot = next[targets[k]]++;
+				newTargets[slot] = i;
+				newWeights[slot] = weights[k];
+			}
+		}
+		return new int[][] { newOffsets, newTargets, newWeights };
+	}
+
+	// helper to the constructor that totals the edge weights of each row
+	private static int[] rowSums(int[] offsets, int[] weights) {
+		int[] sums = new int[offsets.length - 1];
+		for (int i = 0; i < sums.length; i++) {
+			for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+				sums[i] += weights[k];
+			}
+		}
+		return sums;
+	}
+
+	/**
+	 * Copies the part of the graph induced by a set of nodes: the nodes in the
+	 * set and every edge with both ends in it
+	 * 
+	 * @param members -- bitmap over dense indices of the nodes to keep
+	 * @return new graph with its own dense indices
+	 */
+	CsrGraph subgraph(long[] members) {
+		int[] newIndex = new int[getNumNodes()];
+		int numMembers = 0;
+		for (int i = 0; i < newIndex.length; i++) {
+			newIndex[i] = (members[i >>> 6] & (1L << i)) != 0 ? numMembers++ : -1;
+		}
+		int[] subNodeNums = new int[numMembers];
+		int[] subFollowerOffsets = new int[numMembers + 1];
+		int[] subFollowedOffsets = new int[numMembers + 1];
+		for (int i = 0; i < newIndex.length; i++) {
+			int j = newIndex[i];
+			if (j >= 0) {
+				subNodeNums[j] = getNodeNum(i);
+				subFollowerOffsets[j + 1] = subFollowerOffsets[j] + countMembers(followers, followerStart(i),
+						followerEnd(i), newIndex);
+				subFollowedOffsets[j + 1] = subFollowedOffsets[j] + countMembers(followed, followedStart(i),
+						followedEnd(i), newIndex);
+			}
+		}
+		int[] subFollowers = new int[subFollowerOffsets[numMembers]];
+		int[] subFollowerWeights = new int[subFollowers.length];
+		int[] subFollowed = new int[subFollowedOffsets[numMembers]];
+		int[] subFollowedWeights = new int[subFollowed.length];
+		for (int i = 0; i < newIndex.length; i++) {
+			int j = newIndex[i];
+			if (j >= 0) {
+				copyMembers(followers, followerWeights, followerStart(i), followerEnd(i), newIndex, subFollowers,
+						subFollowerWeights, subFollowerOffsets[j]);
+				copyMembers(followed, followedWeights, followedStart(i), followedEnd(i), newIndex, subFollowed,
+						subFollowedWeights, subFollowedOffsets[j]);
+			}
+		}
+		return new CsrGraph(subNodeNums, subFollowerOffsets, subFollowers, subFollowerWeights, subFollowedOffsets,
+				subFollowed, subFollowedWeights);
+	}
+
+	// helper to subgraph that counts the entries of a row that are kept
+	private static int countMembers(IntColumn targets, int start, int end, int[] newIndex) {
+		int count = 0;
+		for (int k = start; k < end; k++) {
+			if (newIndex[targets.get(k)] >= 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	// helper to subgraph that copies the kept entries of a row, renumbered
+	private static void copyMembers(IntColumn targets, IntColumn weights, int start, int end, int[] newIndex,
+			int[] subTargets, int[] subWeights, int position) {
+		for (int k = start; k < end; k++) {
+			int target = newIndex[targets.get(k)];
+			if (target >= 0) {
+				subTargets[position] = target;
+				subWeights[position] = weights.get(k);
+				position++;
+			}
+		}
+	}
+
+	/**
+	 * @param index -- dense index of a node
+	 * @return details about the node in the same form as GraphNode.toString()
+	 */
+	public String nodeInfo(int index) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(getNodeNum(index)).append(" following: ");
+		appendRow(sb, followed, followedWeights, followedStart(index), followedEnd(index));
+		sb.append(" and followed by: ");
+		appendRow(sb, followers, followerWeights, followerStart(index), followerEnd(index));
+		sb.append(" Made ").append(getTotalRetweetsMade(index)).append(" retweets. Was retweeted ")
+				.append(getTotalTimesRetweeted(index)).append(" times.");
+		return sb.toString();
+	}
+
+	// helper to nodeInfo that prints a row like a map of node number to weight
+	private void appendRow(StringBuilder sb, IntColumn targets, IntColumn weights, int start, int end) {
+		sb.append('{');
+		for (int k = start; k < end; k++) {
+			if (k > start) {
+				sb.append(", ");
+			}
+			sb.append(getNodeNum(targets.get(k))).append('=').append(weights.get(k));
+		}
+		sb.append('}');
+	}
+
+	/**
+	 * Selects the top nodes with a bounded heap instead of sorting every node, so
+	 * it takes O(n log howMany) time and O(howMany) extra memory
+	 * 
+	 * @param howMany -- how many influential nodes to find
+	 * @return node numbers ordered by total times retweeted, most first. Ties go
+	 *         to the lower node number
+	 */
+	public List<Integer> findInfluencers(int howMany) {
+		return findInfluencers(howMany, null);
+	}
+
+	/**
+	 * Same bounded heap selection as findInfluencers(howMany), ranking by the
+	 * scorer's scores instead of total times retweeted
+	 * 
+	 * @param howMany -- how many influential nodes to find
+	 * @param scorer  -- scores every node, null for total times retweeted
+	 * @return node numbers ordered by score, highest first. Ties go to the lower
+	 *         node number
+	 */
+	public List<Integer> findInfluencers(int howMany, InfluenceScorer scorer) {
+		return findInfluencers(howMany, scorer, null, 0);
+	}
+
+	/**
+	 * Ranks only the nodes of one community, as split by GraphComponents
+	 * 
+	 * @param howMany     -- how many influential nodes to find
+	 * @param scorer      -- scores every node, null for total times retweeted
+	 * @param communities -- community of every dense index, null for all nodes
+	 * @param community   -- community to rank
+	 * @return node numbers ordered by score, highest first, fewer than howMany if
+	 *         the community is smaller. Ties go to the lower node number
+	 */
+	public List<Integer> findInfluencers(int howMany, InfluenceScorer scorer, int[] communities, int community) {
+		if (communities != null && communities.length != getNumNodes()) {
+			throw new IllegalArgumentException("Community array has " + communities.length + " entries for "
+					+ getNumNodes() + " nodes.");
+		}
+		if (howMany < 0) {
+			throw new IllegalArgumentException("Number of influencers can not be negative.");
+		}
+		if (howMany > getNumNodes()) {
+			throw new IllegalArgumentException("Parameter is greater " + "than number of users in this graph.");
+		}
+		float[] scores = scorer == null ? null : scorer.score(this);
+		if (scores != null && scores.length != getNumNodes()) {
+			throw new IllegalArgumentException("Scorer gave " + scores.length + " scores for " + getNumNodes()
+					+ " nodes.");
+		}
+		// max heap of the howMany smallest keys seen so far, the root is the worst
+		long[] heap = new long[howMany];
+		int size = 0;
+		for (int i = 0; i < getNumNodes(); i++) {
+			if (communities != null && communities[i] != community) {
+				continue;
+			}
+			long key = scores == null ? rankKey(i) : scoreKey(scores[i], i);
+			if (size < howMany) {
+				heap[size] = key;
+				siftUp(heap, size++);
+			} else if (howMany > 0 && key < heap[0]) {
+				heap[0] = key;
+				siftDown(heap, 0, size);
+			}
+		}
+		Arrays.sort(heap, 0, size);
+		List<Integer> influencers = new ArrayList<Integer>(howMany);
+		for (int i = 0; i < size; i++) {
+			influencers.add(nodeNums.get((int) heap[i]));
+		}
+		return influencers;
+	}
+
+	// helper to findInfluencers with a key that sorts by descending total and
+	// then by ascending index
+	private long rankKey(int index) {
+		return ((long) (Integer.MAX_VALUE - totalTimesRetweeted.get(index)) << 32) | index;
+	}
+
+	// helper to findInfluencers with the same order for a score. The bits of a
+	// non-negative float sort the same way as its value
+	private static long scoreKey(float score, int index) {
+		if (!(score >= 0) || score == Float.POSITIVE_INFINITY) {
+			throw new IllegalArgumentException("Score " + score + " of index " + index + " is not finite and "
+					+ "non-negative.");
+		}
+		return ((long) (Integer.MAX_VALUE - Float.floatToIntBits(score + 0.0f)) << 32) | index;
+	}
+
+	// helper to findInfluencers that restores the heap after adding at position
+	private static void siftUp(long[] heap, int position) {
+		long key = heap[position];
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (heap[parent] >= key) {
+				break;
+			}
+			heap[position] = heap[parent];
+			position = parent;
+		}
+		heap[position] = key;
+	}
+
+	// helper to findInfluencers that restores the heap after replacing position
+	private static void siftDown(long[] heap, int position, int size) {
+		long key = heap[position];
+		int half = size >>> 1;
+		while (position < half) {
+			int child = 2 * position + 1;
+			if (child + 1 < size && heap[child + 1] > heap[child]) {
+				child++;
+			}
+			if (key >= heap[child]) {
+				break;
+			}
+			heap[position] = heap[child];
+			position = child;
+		}
+		heap[position] = key;
+	}
+
+	/**
+	 * @return -- how many nodes in the graph
+	 */
+	public int getNumNodes() {
+		return nodeNums.length();
+	}
+
+	/**
+	 * @return -- how many distinct (from, to) edges in the graph
+	 */
+	public int getNumEdges() {
+		return followed.length();
+	}
+
+	/**
+	 * @param nodeNum -- value of a node in the graph
+	 * @return dense index of the node or -1 if it is not in the graph
+	 */
+	public int indexOf(int nodeNum) {
+		int low = 0;
+		int high = nodeNums.length() - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int midNum = nodeNums.get(mid);
+			if (midNum < nodeNum) {
+				low = mid + 1;
+			} else if (midNum > nodeNum) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param index -- dense index of a node
+	 * @return value of the node at that index
+	 */
+	public int getNodeNum(int index) {
+		return nodeNums.get(index);
+	}
+
+	public int getTotalTimesRetweeted(int index) {
+		return totalTimesRetweeted.get(index);
+	}
+
+	public int getTotalRetweetsMade(int index) {
+		return totalRetweetsMade.get(index);
+	}
+
+	/**
+	 * @return position of the first follower of the node at index
+	 */
+	public int followerStart(int index) {
+		return followerOffsets.get(index);
+	}
+
+	/**
+	 * @return position after the last follower of the node at index
+	 */
+	public int followerEnd(int index) {
+		return followerOffsets.get(index + 1);
+	}
+
+	/**
+	 * @return dense index of the follower at a position
+	 */
+	public int followerAt(int position) {
+		return followers.get(position);
+	}
+
+	/**
+	 * @return times the follower at a position retweeted the row's node
+	 */
+	public int followerWeightAt(int position) {
+		return followerWeights.get(position);
+	}
+
+	/**
+	 * @return position of the first node followed by the node at index
+	 */
+	public int followedStart(int index) {
+		return followedOffsets.get(index);
+	}
+
+	/**
+	 * @return position after the last node followed by the node at index
+	 */
+	public int followedEnd(int index) {
+		return followedOffsets.get(index + 1);
+	}
+
+	/**
+	 * @return dense index of the followed node at a position
+	 */
+	public int followedAt(int position) {
+		return followed.get(position);
+	}
+
+	/**
+	 * @return times the row's node retweeted the followed node at a position
+	 */
+	public int followedWeightAt(int position) {
+		return followedWeights.get(position);
+	}
+
+	/**
+	 * Influence of a node on its followers, as the diffusion models and PageRank
+	 * use it: the share of each follower's retweets that went to the node
+	 *
+	 * @return share of every follower position, indexed like followerAt
+	 */
+	public float[] followerShares() {
+		float[] shares = new float[getNumEdges()];
+		for (int i = 0; i < getNumNodes(); i++) {
+			for (int k = followerStart(i); k < followerEnd(i); k++) {
+				shares[k] = ((float) followerWeightAt(k)) / getTotalRetweetsMade(followerAt(k));
+			}
+		}
+		return shares;
+	}
+
+	/**
+	 * Same shares as followerShares, seen from the retweeting side
+	 *
+	 * @return share of the row node's retweets that went to the followed node,
+	 *         for every followed position, indexed like followedAt
+	 */
+	public float[] followedShares() {
+		float[] shares = new float[getNumEdges()];
+		for (int i = 0; i < getNumNodes(); i++) {
+			for (int k = followedStart(i); k < followedEnd(i); k++) {
+				shares[k] = ((float) followedWeightAt(k)) / getTotalRetweetsMade(i);
+			}
+		}
+		return shares;
+	}
+
+	/**
+	 * Brief description of graph suitable for printing
+	 */
+	@Override
+	public String toString() {
+		return "CsrGraph with " + getNumNodes() + " nodes and " + getNumEdges() + " edges";
+	}
+
+}
@@ -0,0 +1,265 @@
+package influencer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Stochastic diffusion on a frozen graph, averaged over many Monte Carlo
+ * trials. A node v is influenced by a node u it follows in proportion to the
+ * share of v's retweets that went to u: weight(u, v) / totalRetweetsMade(v).
+ *
+ * INDEPENDENT_CASCADE gives each newly active node one chance to activate each
+ * follower with that probability. LINEAR_THRESHOLD draws a uniform random
+ * threshold per node and activates it once the shares of its active followed
+ * nodes add up to the threshold.
+ *
+ * Trials are split into fixed size chunks and each chunk gets its own
+ * SplittableRandom, split from the seed in chunk order, so a run gives the
+ * same statistics for the same seed however many threads run it. Each thread
+ * reuses one set of working arrays for all its trials.
+ *
+ * @author Hillary
+ */
+public class DiffusionSimulator {
+
+	/**
+	 * Diffusion model of the trials
+	 */
+	public enum Model {
+		INDEPENDENT_CASCADE, LINEAR_THRESHOLD
+	}
+
+	// trials run by one fork join task, with one random generator
+	private static final int TRIALS_PER_TASK = 32;
+
+	private final CsrGraph graph;
+	private final Model model;
+	private final ForkJoinPool pool;
+	// influence share of every follower edge, same positions as the follower
+	// rows of the graph
+	private final float[] shares;
+
+	/**
+	 * @param graph -- frozen graph to run on
+	 * @param model -- diffusion model
+	 */
+	public DiffusionSimulator(CsrGraph graph, Model model) {
+		this(graph, model, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param graph -- frozen graph to run on
+	 * @param model -- diffusion model
+	 * @param pool  -- threads for the trials, null to run them on the calling
+	 *              thread
+	 */
+	public DiffusionSimulator(CsrGraph graph, Model model, ForkJoinPool pool) {
+		this.graph = graph;
+		this.model = model;
+		this.pool = pool;
+		this.shares = graph.followerShares();
+	}
+
+	/**
+	 * Runs the trials
+	 *
+	 * @param influentialNodes -- seeds, active in generation 0 of every trial
+	 * @param trials           -- how many trials to average over
+	 * @param maxGenerations   -- most generations per trial, must be positive
+	 * @param seed             -- random seed; the same seed gives the same
+	 *                         statistics
+	 * @return mean and variance of the spread per generation
+	 */
+	public DiffusionStats simulate(List<Integer> influentialNodes, int trials, int maxGenerations, long seed) {
+		if (trials <= 0 || maxGenerations <= 0) {
+			throw new IllegalArgumentException("Trials and generations must be positive integers.");
+		}
+		int[] seeds = new int[influentialNodes.size()];
+		for (int i = 0; i < seeds.length; i++) {
+			seeds[i] = graph.indexOf(influentialNodes.get(i));
+			if (seeds[i] < 0) {
+				throw new IllegalArgumentException(
+						"Influential node " + influentialNodes.get(i) + " is not in the graph.");
+			}
+		}
+		ScratchPool<Scratch> scratch = new ScratchPool<Scratch>(() -> new Scratch(graph.getNumNodes()));
+		SplittableRandom root = new SplittableRandom(seed);
+		List<TrialChunk> chunks = new ArrayList<TrialChunk>();
+		for (int start = 0; start < trials; start += TRIALS_PER_TASK) {
+			chunks.add(new TrialChunk(seeds, Math.min(TRIALS_PER_TASK, trials - start), maxGenerations,
+					root.split(), scratch));
+		}
+		ChunkRunner.run(pool, chunks);
+		long[] sums = new long[maxGenerations + 1];
+		double[] sumsOfSquares = new double[maxGenerations + 1];
+		for (TrialChunk chunk : chunks) {
+			for (int g = 0; g <= maxGenerations; g++) {
+				sums[g] += chunk.sums[g];
+				sumsOfSquares[g] += chunk.sumsOfSquares[g];
+			}
+		}
+		return new DiffusionStats(model, trials, sums, sumsOfSquares);
+	}
+
+	/**
+	 * helper to TrialChunk that runs one trial and writes the active count after
+	 * each generation to spread
+	 */
+	private void runTrial(int[] seeds, int maxGenerations, SplittableRandom random, Scratch s, int[] spread) {
+		int stamp = s.nextStamp();
+		int frontierSize = 0;
+		for (int seed : seeds) {
+			if (s.active[seed] != stamp) {
+				s.active[seed] = stamp;
+				s.frontier[frontierSize++] = seed;
+			}
+		}
+		int numActive = frontierSize;
+		spread[0] = numActive;
+		int g = 1;
+		for (; g <= maxGenerations && frontierSize > 0; g++) {
+			int nextSize = model == Model.INDEPENDENT_CASCADE
+					? independentCascadeStep(s, stamp, frontierSize, random)
+					: linearThresholdStep(s, stamp, frontierSize, random);
+			int[] swap = s.frontier;
+			s.frontier = s.next;
+			s.next = swap;
+			frontierSize = nextSize;
+			numActive += nextSize;
+			spread[g] = numActive;
+		}
+		for (; g <= maxGenerations; g++) {
+			spread[g] = numActive;
+		}
+	}
+
+	// helper to runTrial: each frontier node tries each inactive follower once
+	private int independentCascadeStep(Scratch s, int stamp, int frontierSize, SplittableRandom random) {
+		int nextSize = 0;
+		for (int f = 0; f < frontierSize; f++) {
+			int node = s.frontier[f];
+			for (int k = graph.followerStart(node); k < graph.followerEnd(node); k++) {
+				int follower = graph.followerAt(k);
+				if (s.active[follower] != stamp && random.nextDouble() < shares[k]) {
+					s.active[follower] = stamp;
+					s.next[nextSize++] = follower;
+				}
+			}
+		}
+		return nextSize;
+	}
+
+	// helper to runTrial: frontier nodes add their share to each inactive
+	// follower, which activates once its threshold is reached. A follower's
+	// threshold is drawn the first time it is reached in a trial
+	private int linearThresholdStep(Scratch s, int stamp, int frontierSize, SplittableRandom random) {
+		int nextSize = 0;
+		for (int f = 0; f < frontierSize; f++) {
+			int node = s.frontier[f];
+			for (int k = graph.followerStart(node); k < graph.followerEnd(node); k++) {
+				int follower = graph.followerAt(k);
+				if (s.active[follower] == stamp) {
+					continue;
+				}
+				if (s.touched[follower] != stamp) {
+					s.touched[follower] = stamp;
+					s.threshold[follower] = random.nextDouble();
+					s.weight[follower] = 0;
+				}
+				s.weight[follower] += shares[k];
+				if (s.weight[follower] >= s.threshold[follower]) {
+					s.active[follower] = stamp;
+					s.next[nextSize++] = follower;
+				}
+			}
+		}
+		return nextSize;
+	}
+
+	public Model getModel() {
+		return model;
+	}
+
+	/**
+	 * A fixed number of trials with their own random generator, summing the
+	 * spread and its square per generation
+	 */
+	private final class TrialChunk extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int[] seeds;
+		private final int trials;
+		private final int maxGenerations;
+		private final SplittableRandom random;
+		private final long[] sums;
+		private final double[] sumsOfSquares;
+		private final ScratchPool<Scratch> scratch;
+
+		private TrialChunk(int[] seeds, int trials, int maxGenerations, SplittableRandom random,
+				ScratchPool<Scratch> scratch) {
+			this.seeds = seeds;
+			this.trials = trials;
+			this.maxGenerations = maxGenerations;
+			this.random = random;
+			this.sums = new long[maxGenerations + 1];
+			this.sumsOfSquares = new double[maxGenerations + 1];
+			this.scratch = scratch;
+		}
+
+		@Override
+		protected void compute() {
+			Scratch s = scratch.take();
+			int[] spread = new int[maxGenerations + 1];
+			for (int t = 0; t < trials; t++) {
+				runTrial(seeds, maxGenerations, random, s, spread);
+				for (int g = 0; g <= maxGenerations; g++) {
+					sums[g] += spread[g];
+					sumsOfSquares[g] += (double) spread[g] * spread[g];
+				}
+			}
+			scratch.giveBack(s);
+		}
+	}
+
+	/**
+	 * Working arrays of one chunk's trials at a time, indexed by dense node
+	 * index. Each trial takes a new stamp, so the arrays never have to be
+	 * cleared
+	 */
+	private static final class Scratch {
+		private final int[] active;
+		private final int[] touched;
+		private final double[] threshold;
+		private final double[] weight;
+		private int[] frontier;
+		private int[] next;
+		private int stamp;
+
+		private Scratch(int numNodes) {
+			active = new int[numNodes];
+			touched = new int[numNodes];
+			threshold = new double[numNodes];
+			weight = new double[numNodes];
+			frontier = new int[numNodes];
+			next = new int[numNodes];
+		}
+
+		private int nextStamp() {
+			if (stamp == Integer.MAX_VALUE) {
+				Arrays.fill(active, 0);
+				Arrays.fill(touched, 0);
+				stamp = 0;
+			}
+			return ++stamp;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Diffusion simulator (" + model + ") on " + graph;
+	}
+
+}
@@ -0,0 +1,96 @@
+package influencer;
+
+/**
+ * Spread of a Monte Carlo diffusion run: the mean and sample variance, over
+ * all trials, of how many nodes are active after each generation. Trials that
+ * die out early keep their final count for the remaining generations.
+ *
+ * @author Hillary
+ */
+public final class DiffusionStats {
+
+	private final DiffusionSimulator.Model model;
+	private final int trials;
+	private final double[] meanSpread;
+	private final double[] varianceSpread;
+
+	DiffusionStats(DiffusionSimulator.Model model, int trials, long[] sums, double[] sumsOfSquares) {
+		this.model = model;
+		this.trials = trials;
+		this.meanSpread = new double[sums.length];
+		this.varianceSpread = new double[sums.length];
+		for (int g = 0; g < sums.length; g++) {
+			double mean = (double) sums[g] / trials;
+			meanSpread[g] = mean;
+			varianceSpread[g] = trials < 2 ? 0 : Math.max(0, (sumsOfSquares[g] - trials * mean * mean) / (trials - 1));
+		}
+	}
+
+	public DiffusionSimulator.Model getModel() {
+		return model;
+	}
+
+	public int getTrials() {
+		return trials;
+	}
+
+	/**
+	 * @return generations in the statistics, the seeds' generation 0 included
+	 */
+	public int getNumGenerations() {
+		return meanSpread.length;
+	}
+
+	/**
+	 * @param generation -- 0 for the seeds
+	 * @return mean number of active nodes after the generation
+	 */
+	public double getMeanSpread(int generation) {
+		checkGeneration(generation);
+		return meanSpread[generation];
+	}
+
+	/**
+	 * @param generation -- 0 for the seeds
+	 * @return sample variance of the number of active nodes after the generation
+	 */
+	public double getVarianceSpread(int generation) {
+		checkGeneration(generation);
+		return varianceSpread[generation];
+	}
+
+	/**
+	 * @return mean number of active nodes at the end of a trial
+	 */
+	public double getMeanSpread() {
+		return meanSpread[meanSpread.length - 1];
+	}
+
+	/**
+	 * @return sample variance of the number of active nodes at the end of a trial
+	 */
+	public double getVarianceSpread() {
+		return varianceSpread[varianceSpread.length - 1];
+	}
+
+	/**
+	 * @return standard error of getMeanSpread()
+	 */
+	public double getStandardError() {
+		return Math.sqrt(getVarianceSpread() / trials);
+	}
+
+	// helper that rejects generations not in the statistics
+	private void checkGeneration(int generation) {
+		if (generation < 0 || generation >= meanSpread.length) {
+			throw new IllegalArgumentException("Generation " + generation + " is not in the statistics.");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return model + " over " + trials + " trials: mean spread " + getMeanSpread() + " (variance "
+				+ getVarianceSpread() + ") after " + (meanSpread.length - 1) + " generations";
+	}
+
+}
@@ -0,0 +1,100 @@
+package influencer;
+
+/**
+ * What one generation of a cascade cost. The last generation of a run that
+ * stops early is reported too, with nothing activated
+ *
+ * @author Hillary
+ */
+public final class GenerationMetrics {
+
+	private final CascadeModelingWithInfluencers.Engine engine;
+	private final int generation;
+	private final long nanos;
+	private final long resultNanos;
+	private final long nodesEvaluated;
+	private final long edgesScanned;
+	private final int newlyActivated;
+	private final int totalActive;
+	private final long bytesAllocated;
+
+	GenerationMetrics(CascadeModelingWithInfluencers.Engine engine, int generation, long nanos, long resultNanos,
+			long nodesEvaluated, long edgesScanned, int newlyActivated, int totalActive, long bytesAllocated) {
+		this.engine = engine;
+		this.generation = generation;
+		this.nanos = nanos;
+		this.resultNanos = resultNanos;
+		this.nodesEvaluated = nodesEvaluated;
+		this.edgesScanned = edgesScanned;
+		this.newlyActivated = newlyActivated;
+		this.totalActive = totalActive;
+		this.bytesAllocated = bytesAllocated;
+	}
+
+	public CascadeModelingWithInfluencers.Engine getEngine() {
+		return engine;
+	}
+
+	/**
+	 * @return which generation, 1 being the first after the seeds
+	 */
+	public int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * @return wall time of the whole generation, including getResultNanos()
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+
+	/**
+	 * @return wall time spent copying the newly active nodes into the result
+	 */
+	public long getResultNanos() {
+		return resultNanos;
+	}
+
+	/**
+	 * @return how many inactive nodes had their influence percent checked
+	 */
+	public long getNodesEvaluated() {
+		return nodesEvaluated;
+	}
+
+	/**
+	 * @return how many follower and followed edges were read
+	 */
+	public long getEdgesScanned() {
+		return edgesScanned;
+	}
+
+	public int getNewlyActivated() {
+		return newlyActivated;
+	}
+
+	/**
+	 * @return active nodes after this generation, seeds included
+	 */
+	public int getTotalActive() {
+		return totalActive;
+	}
+
+	/**
+	 * @return bytes allocated by the cascade's thread during the generation, plus
+	 *         those of the fork join threads for the PARALLEL engine, or -1 if
+	 *         the JVM can not measure it
+	 */
+	public long getBytesAllocated() {
+		return bytesAllocated;
+	}
+
+	@Override
+	public String toString() {
+		return "Generation " + generation + " (" + engine + "): " + newlyActivated + " activated, " + totalActive
+				+ " active, " + nodesEvaluated + " nodes evaluated, " + edgesScanned + " edges scanned in " + nanos
+				+ " ns (" + resultNanos + " ns result), " + bytesAllocated + " bytes allocated";
+	}
+
+}
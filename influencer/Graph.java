@@ -1,15 +1,11 @@
 
 package influencer;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Stack;
 
 /**
  * @author Hillary
@@ -19,18 +15,35 @@ import java.util.Stack;
 public class Graph {
 
 	private Map<Integer, GraphNode> nodes;
+	private CsrGraph frozen;
 
 	public Graph() {
 		nodes = new HashMap<Integer, GraphNode>();
 	}
 
+	/**
+	 * @param expectedNodes -- how many nodes to make room for
+	 */
+	public Graph(int expectedNodes) {
+		if (expectedNodes < 0) {
+			throw new IllegalArgumentException("Expected number of nodes can not be negative.");
+		}
+		nodes = new HashMap<Integer, GraphNode>(GraphNode.capacityFor(expectedNodes));
+	}
+
+	// constructor for fromFrozen that leaves the node map to nodes()
+	private Graph(CsrGraph frozen) {
+		this.frozen = frozen;
+	}
+
 	/**
 	 * @param num -- value to assign this node
 	 */
 	public void addVertex(int num) {
-		if (!nodes.containsKey(num)) {
+		if (!nodes().containsKey(num)) {
 			GraphNode node = new GraphNode(num);
-			nodes.put(num, node);
+			nodes().put(num, node);
+			frozen = null;
 		}
 	}
 
@@ -39,107 +52,180 @@ public class Graph {
 	 * @param to   -- node number of node who retweeted the other's post
 	 */
 	public void addEdge(int from, int to) {
-		if (!nodes.containsKey(from) || !nodes.containsKey(to)) {
+		if (!nodes().containsKey(from) || !nodes().containsKey(to)) {
 			throw new IllegalArgumentException("Can't add an edge yet. Add nodes first.");
 		}
-		GraphNode fromNode = nodes.get(from);
-		GraphNode toNode = nodes.get(to);
+		GraphNode fromNode = nodes().get(from);
+		GraphNode toNode = nodes().get(to);
 		fromNode.addNodeIFollow(to);
 		toNode.addFollowerNode(from);
+		frozen = null;
+	}
 
+	/**
+	 * Adds an edge that was retweeted weight times at once, instead of calling
+	 * addEdge(from, to) weight times
+	 * 
+	 * @param from   -- node number of node that was retweeted
+	 * @param to     -- node number of node who retweeted the other's post
+	 * @param weight -- how many times, a positive integer
+	 */
+	public void addEdge(int from, int to, int weight) {
+		if (!nodes().containsKey(from) || !nodes().containsKey(to)) {
+			throw new IllegalArgumentException("Can't add an edge yet. Add nodes first.");
+		}
+		if (weight <= 0) {
+			throw new IllegalArgumentException("Edge weight must be a positive integer.");
+		}
+		nodes().get(from).addNodeIFollow(to, weight);
+		nodes().get(to).addFollowerNode(from, weight);
+		frozen = null;
 	}
 
 	/**
-	 * Makes a copy of the graph for manipulation without affecting the original
+	 * Adds a batch of pre-aggregated edges, adding any vertex not in the graph
+	 * yet. Pairs may repeat, their weights are summed
 	 * 
-	 * @return -- copy of the graph object and all vertices and edges
+	 * @param from     -- node numbers of the nodes that were retweeted
+	 * @param to       -- node numbers of the nodes who retweeted, same positions
+	 *                 as from
+	 * @param weights  -- how many times each pair retweeted, positive integers
+	 * @param numEdges -- how many entries of the arrays to add
 	 */
-	public Graph deepCopy() {
-		Graph newCopy = new Graph();
-		Set<Integer> visited = new HashSet<Integer>();
-		for (int nodeNum : nodes.keySet()) {
-			if (!visited.contains(nodeNum)) {
-				newCopy.addVertex(nodeNum);
-				GraphNode node = nodes.get(nodeNum);
-				Map<Integer, Integer> nodesFollowed = node.getNodesIFollow();
-				for (int followedNode : nodesFollowed.keySet()) {
-					newCopy.addVertex(followedNode);
-					int edgeWeight = nodesFollowed.get(followedNode);
-					for (int i = 0; i < edgeWeight; i++) {
-						newCopy.addEdge(nodeNum, followedNode);
-					}
-				}
+	public void addEdges(int[] from, int[] to, int[] weights, int numEdges) {
+		for (int i = 0; i < numEdges; i++) {
+			if (weights[i] <= 0) {
+				throw new IllegalArgumentException("Edge weight must be a positive integer.");
 			}
 		}
-		return newCopy;
+		for (int i = 0; i < numEdges; i++) {
+			GraphNode fromNode = getOrAddNode(from[i]);
+			GraphNode toNode = getOrAddNode(to[i]);
+			fromNode.addNodeIFollow(to[i], weights[i]);
+			toNode.addFollowerNode(from[i], weights[i]);
+		}
+		frozen = null;
 	}
 
 	/**
-	 * @param howMany -- how many influential nodes to find
-	 * @return List<Graph> subgraphs based on the influential node
+	 * Adds a batch of edges, adding any vertex not in the graph yet. Each node is
+	 * looked up once per edge instead of once in addVertex and again in addEdge
+	 * 
+	 * @param from     -- node numbers of the nodes that were retweeted
+	 * @param to       -- node numbers of the nodes who retweeted, same positions
+	 *                 as from
+	 * @param numEdges -- how many entries of the arrays to add
 	 */
-	public List<Graph> getInfluencerGraphs(int howMany) {
-		List<Integer> influencerNodeNums = findInfluencers(howMany);
-		List<Graph> influencerGraphList = new LinkedList<Graph>();
-		for (int nodeNum : influencerNodeNums) {
-			influencerGraphList.add(buildOneInfluencerGraph(nodeNum));
+	public void addEdges(int[] from, int[] to, int numEdges) {
+		for (int i = 0; i < numEdges; i++) {
+			GraphNode fromNode = getOrAddNode(from[i]);
+			GraphNode toNode = getOrAddNode(to[i]);
+			fromNode.addNodeIFollow(to[i]);
+			toNode.addFollowerNode(from[i]);
 		}
-		return influencerGraphList;
+		frozen = null;
 	}
 
-	// helper to buildInfluencerGraphs that sorts nodes by number of times
-	// retweeted
-	private List<Integer> findInfluencers(int howMany) {
-		if (howMany > getNumNodes()) {
-			throw new IllegalArgumentException("Parameter is greater " + "than number of users in this graph.");
+	/**
+	 * Wraps the frozen form of a graph, such as a reopened GraphSnapshot, as a
+	 * graph. The frozen graph is kept as the cached freeze() of the result, so
+	 * the ranking, path and cascade code use it as is. The node map is only
+	 * built from it if something asks for the nodes or changes the graph
+	 * 
+	 * @param frozen -- frozen graph to wrap
+	 * @return graph with the same vertices and edge weights
+	 */
+	static Graph fromFrozen(CsrGraph frozen) {
+		return new Graph(frozen);
+	}
+
+	// helper that returns the node map, building it from the frozen graph first
+	// for a graph made by fromFrozen
+	private Map<Integer, GraphNode> nodes() {
+		if (nodes == null) {
+			int numNodes = frozen.getNumNodes();
+			nodes = new HashMap<Integer, GraphNode>(GraphNode.capacityFor(numNodes));
+			for (int i = 0; i < numNodes; i++) {
+				GraphNode node = new GraphNode(frozen.getNodeNum(i));
+				for (int k = frozen.followedStart(i); k < frozen.followedEnd(i); k++) {
+					node.addNodeIFollow(frozen.getNodeNum(frozen.followedAt(k)), frozen.followedWeightAt(k));
+				}
+				for (int k = frozen.followerStart(i); k < frozen.followerEnd(i); k++) {
+					node.addFollowerNode(frozen.getNodeNum(frozen.followerAt(k)), frozen.followerWeightAt(k));
+				}
+				nodes.put(node.getNodeNum(), node);
+			}
 		}
-		List<Integer> influencers = new ArrayList<Integer>(howMany);
-		List<GraphNode> allNodes = new ArrayList<GraphNode>(nodes.values());
-		for (GraphNode node : nodes.values()) {
-			allNodes.add(node);
+		return nodes;
+	}
+
+	// helper to addEdges that returns the node, adding it first if necessary
+	private GraphNode getOrAddNode(int num) {
+		GraphNode node = nodes().get(num);
+		if (node == null) {
+			node = new GraphNode(num);
+			nodes().put(num, node);
 		}
-		Collections.sort(allNodes, (a, b) -> b.compareTo(a));
-		for (int i = 0; i < howMany; i++) {
-			influencers.add(allNodes.get(i).getNodeNum());
+		return node;
+	}
+
+	/**
+	 * Freezes the graph into an immutable compressed sparse row form that the
+	 * ranking, path and cascade code run on. The result is cached until the graph
+	 * is changed again
+	 * 
+	 * @return -- CSR snapshot of the current vertices and edges
+	 */
+	public CsrGraph freeze() {
+		if (frozen == null) {
+			frozen = CsrGraph.fromNodes(nodes());
 		}
-		return influencers;
-	}
-
-	// helper to buildInfluencerGraph that builds a graph including all
-	// nodes that are connected to the influencer node
-	private Graph buildOneInfluencerGraph(int nodeNum) {
-		Graph influencerGraph = new InfluencerGraph(nodeNum);
-		Set<Integer> visited = new HashSet<Integer>();
-		Stack<Integer> toVisit = new Stack<Integer>();
-		toVisit.push(nodeNum);
-		while (!toVisit.empty()) {
-			int currNum = toVisit.pop();
-			if (!visited.contains(currNum)) {
-				visited.add(currNum);
-				influencerGraph.addVertex(currNum);
-				GraphNode curr = nodes.get(currNum);
-				for (int follower : curr.getFollowers().keySet()) {
-					addInfluencerVerticesAndEdges(influencerGraph, visited, toVisit, currNum, follower);
-				}
+		return frozen;
+	}
 
-			}
+	/**
+	 * Makes a copy of the graph for manipulation without affecting the original.
+	 * Each distinct edge is copied once with its weight, into maps sized up front
+	 * 
+	 * @return -- copy of the graph object and all vertices and edges
+	 */
+	public Graph deepCopy() {
+		Graph newCopy = new Graph(nodes().size());
+		for (GraphNode node : nodes().values()) {
+			newCopy.nodes.put(node.getNodeNum(), new GraphNode(node));
 		}
-		return influencerGraph;
-	}
-
-	// helper to buildInfluencerGraphs that takes care of adding the vertices
-	// and edges of the influencer graph
-	private void addInfluencerVerticesAndEdges(Graph influencerGraph, Set<Integer> visited, Stack<Integer> toVisit,
-			int currNum, int nextNum) {
-		if (!visited.contains(nextNum)) {
-			influencerGraph.addVertex(nextNum);
-			GraphNode nextNode = nodes.get(nextNum);
-			int edgeWeight = nextNode.getNodesIFollow().get(currNum);
-			for (int i = 0; i < edgeWeight; i++) {
-				influencerGraph.addEdge(nextNum, currNum);
-			}
-			toVisit.push(nextNum);
+		return newCopy;
+	}
+
+	/**
+	 * Influencer graphs are views over a frozen copy of this graph: the
+	 * influencer plus a bitmap of the nodes it reaches, sharing this graph's
+	 * adjacency instead of copying it
+	 * 
+	 * @param howMany -- how many influential nodes to find
+	 * @return List<Graph> subgraphs based on the influential node
+	 */
+	public List<Graph> getInfluencerGraphs(int howMany) {
+		return getInfluencerGraphs(howMany, null);
+	}
+
+	/**
+	 * Same as getInfluencerGraphs(howMany) with the influencers ranked by a
+	 * scorer, such as PageRankScorer
+	 * 
+	 * @param howMany -- how many influential nodes to find
+	 * @param scorer  -- scores every node, null for total times retweeted
+	 * @return List<Graph> subgraphs based on the influential node
+	 */
+	public List<Graph> getInfluencerGraphs(int howMany, InfluenceScorer scorer) {
+		CsrGraph csr = freeze();
+		List<Integer> influencerNodeNums = csr.findInfluencers(howMany, scorer);
+		List<Graph> influencerGraphList = new LinkedList<Graph>();
+		for (int nodeNum : influencerNodeNums) {
+			ReachAnalysis reach = ReachAnalysis.of(csr, nodeNum, null);
+			influencerGraphList.add(new InfluencerGraph(csr, nodeNum, reach.visitedBits(), reach.getReach() + 1));
 		}
+		return influencerGraphList;
 	}
 
 	/**
@@ -149,7 +235,7 @@ public class Graph {
 	 */
 	public String graphInfo() {
 		StringBuilder sb = new StringBuilder();
-		for (GraphNode node : nodes.values()) {
+		for (GraphNode node : nodes().values()) {
 			sb.append(node.toString() + "\n");
 		}
 		return sb.toString();
@@ -160,14 +246,14 @@ public class Graph {
 	 * @return -- how many nodes in the graph
 	 */
 	public int getNumNodes() {
-		return nodes.size();
+		return nodes == null ? frozen.getNumNodes() : nodes.size();
 	}
 
 	/**
 	 * @return -- all the values for the nodes in the graph
 	 */
 	public Set<Integer> getNodeNumbers() {
-		return nodes.keySet();
+		return nodes().keySet();
 	}
 
 	/**
@@ -177,7 +263,7 @@ public class Graph {
 	 * protects mutable graph nodes outside of package
 	 */
 	protected Map<Integer, GraphNode> getAllNodes() {
-		return new HashMap<Integer, GraphNode>(nodes);
+		return new HashMap<Integer, GraphNode>(nodes());
 	}
 
 	/**
@@ -186,7 +272,7 @@ public class Graph {
 	 * nodes outside of package
 	 */
 	protected GraphNode getOneNode(int nodeNum) {
-		return nodes.get(nodeNum);
+		return nodes().get(nodeNum);
 	}
 
 	/**
@@ -0,0 +1,306 @@
+package influencer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits a frozen graph into parts that cascades can be run on separately:
+ * weakly connected components, strongly connected components and label
+ * propagation communities. Every method returns Communities, whose int array
+ * from dense index to community restricts findInfluencers and
+ * CascadeModelingWithInfluencers to one part.
+ *
+ * None of the searches recurse, so long chains of retweets can not overflow
+ * the stack.
+ *
+ * @author Hillary
+ */
+public final class GraphComponents {
+
+	public static final int DEFAULT_MAX_ITERATIONS = 20;
+
+	// nodes relabeled by one fork join task
+	private static final int NODES_PER_TASK = 8192;
+
+	private GraphComponents() {
+	}
+
+	/**
+	 * Union find over every edge, ignoring direction
+	 *
+	 * @param graph -- graph to split
+	 * @return weakly connected components
+	 */
+	public static Communities weaklyConnected(CsrGraph graph) {
+		int numNodes = graph.getNumNodes();
+		int[] parent = new int[numNodes];
+		for (int i = 0; i < numNodes; i++) {
+			parent[i] = i;
+		}
+		for (int i = 0; i < numNodes; i++) {
+			for (int k = graph.followerStart(i); k < graph.followerEnd(i); k++) {
+				int a = find(parent, i);
+				int b = find(parent, graph.followerAt(k));
+				// the lower root wins, so every component ends up labeled by its
+				// lowest index
+				if (a < b) {
+					parent[b] = a;
+				} else if (b < a) {
+					parent[a] = b;
+				}
+			}
+		}
+		for (int i = 0; i < numNodes; i++) {
+			parent[i] = find(parent, i);
+		}
+		return new Communities(graph, parent);
+	}
+
+	// helper to weaklyConnected that finds the root of a node, halving the path
+	// on the way
+	private static int find(int[] parent, int node) {
+		while (parent[node] != node) {
+			parent[node] = parent[parent[node]];
+			node = parent[node];
+		}
+		return node;
+	}
+
+	/**
+	 * Tarjan's algorithm with its own explicit stack of nodes and edge positions
+	 * in place of recursion
+	 *
+	 * @param graph -- graph to split
+	 * @return strongly connected components over the follower edges
+	 */
+	public static Communities stronglyConnected(CsrGraph graph) {
+		int numNodes = graph.getNumNodes();
+		// order each node was first reached, starting at 1 so 0 means unvisited
+		int[] order = new int[numNodes];
+		int[] low = new int[numNodes];
+		int[] component = new int[numNodes];
+		boolean[] onStack = new boolean[numNodes];
+		int[] stack = new int[numNodes];
+		int[] callNode = new int[numNodes];
+		int[] callEdge = new int[numNodes];
+		int stackSize = 0;
+		int counter = 0;
+		for (int root = 0; root < numNodes; root++) {
+			if (order[root] != 0) {
+				continue;
+			}
+			int depth = 0;
+			callNode[0] = root;
+			callEdge[0] = graph.followerStart(root);
+			order[root] = low[root] = ++counter;
+			stack[stackSize++] = root;
+			onStack[root] = true;
+			while (depth >= 0) {
+				int node = callNode[depth];
+				if (callEdge[depth] < graph.followerEnd(node)) {
+					int next = graph.followerAt(callEdge[depth]++);
+					if (order[next] == 0) {
+						order[next] = low[next] = ++counter;
+						stack[stackSize++] = next;
+						onStack[next] = true;
+						depth++;
+						callNode[depth] = next;
+						callEdge[depth] = graph.followerStart(next);
+					} else if (onStack[next] && order[next] < low[node]) {
+						low[node] = order[next];
+					}
+					continue;
+				}
+				if (low[node] == order[node]) {
+					int member;
+					do {
+						member = stack[--stackSize];
+						onStack[member] = false;
+						component[member] = node;
+					} while (member != node);
+				}
+				depth--;
+				if (depth >= 0 && low[node] < low[callNode[depth]]) {
+					low[callNode[depth]] = low[node];
+				}
+			}
+		}
+		return new Communities(graph, component);
+	}
+
+	/**
+	 * Label propagation on the common pool with the default iteration cap
+	 *
+	 * @param graph -- graph to split
+	 * @return label propagation communities
+	 */
+	public static Communities labelPropagation(CsrGraph graph) {
+		return labelPropagation(graph, DEFAULT_MAX_ITERATIONS, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Every node starts in its own community and each iteration moves every node
+	 * to the community that weighs most among its neighbours in both directions,
+	 * weighted by retweets. A node stays put when its own community is among the
+	 * heaviest, and otherwise takes the lowest of them. Nodes are split into
+	 * fixed ranges that run in parallel: inside a range nodes move one after the
+	 * other and see the moves before them, across ranges they see the previous
+	 * iteration's labels. That keeps pairs of nodes from swapping labels forever
+	 * and gives the same result on any number of threads. Stops when no node
+	 * moves or after maxIterations.
+	 *
+	 * @param graph         -- graph to split
+	 * @param maxIterations -- most iterations to run
+	 * @param pool          -- threads for the iterations, null to run them on
+	 *                      the calling thread
+	 * @return label propagation communities
+	 */
+	public static Communities labelPropagation(CsrGraph graph, int maxIterations, ForkJoinPool pool) {
+		if (maxIterations <= 0) {
+			throw new IllegalArgumentException("Iterations must be a positive integer.");
+		}
+		int numNodes = graph.getNumNodes();
+		int[] labels = new int[numNodes];
+		int[] next = new int[numNodes];
+		for (int i = 0; i < numNodes; i++) {
+			labels[i] = i;
+		}
+		ScratchPool<int[][]> scratch = new ScratchPool<int[][]>(() -> new int[][] { new int[numNodes], new int[64] });
+		List<LabelRange> ranges = new ArrayList<LabelRange>();
+		for (int start = 0; start < numNodes; start += NODES_PER_TASK) {
+			ranges.add(new LabelRange(graph, start, Math.min(numNodes, start + NODES_PER_TASK), scratch));
+		}
+		for (int iteration = 0; iteration < maxIterations; iteration++) {
+			for (LabelRange range : ranges) {
+				range.prepare(labels, next);
+			}
+			ChunkRunner.run(pool, ranges);
+			int moved = 0;
+			for (LabelRange range : ranges) {
+				moved += range.moved;
+			}
+			int[] swap = labels;
+			labels = next;
+			next = swap;
+			if (moved == 0) {
+				break;
+			}
+		}
+		return new Communities(graph, labels);
+	}
+
+	/**
+	 * @param graph       -- graph the communities are of
+	 * @param communities -- community of every dense index
+	 * @param community   -- community to keep
+	 * @return the community with only the edges inside it
+	 */
+	static CsrGraph restrict(CsrGraph graph, int[] communities, int community) {
+		return graph.subgraph(membersOf(graph, communities, community));
+	}
+
+	// helper to restrict that builds a bitmap over the dense indices of the
+	// nodes in the community
+	private static long[] membersOf(CsrGraph graph, int[] communities, int community) {
+		if (communities.length != graph.getNumNodes()) {
+			throw new IllegalArgumentException("Community array has " + communities.length + " entries for "
+					+ graph.getNumNodes() + " nodes.");
+		}
+		long[] members = new long[(communities.length + 63) >>> 6];
+		for (int i = 0; i < communities.length; i++) {
+			if (communities[i] == community) {
+				members[i >>> 6] |= 1L << i;
+			}
+		}
+		return members;
+	}
+
+	/**
+	 * One label propagation iteration over a fixed range of dense indices. The
+	 * scratch it takes holds the weight per label, kept at zero between nodes,
+	 * and the list of labels touched for the current node
+	 */
+	private static final class LabelRange extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final CsrGraph graph;
+		private final int start;
+		private final int end;
+		private final ScratchPool<int[][]> scratch;
+		private int[] labels;
+		private int[] next;
+		private int moved;
+
+		private LabelRange(CsrGraph graph, int start, int end, ScratchPool<int[][]> scratch) {
+			this.graph = graph;
+			this.start = start;
+			this.end = end;
+			this.scratch = scratch;
+		}
+
+		// helper that sets up the range for the next iteration, as a fork join
+		// task can only run again once reinitialized
+		private void prepare(int[] labels, int[] next) {
+			reinitialize();
+			this.labels = labels;
+			this.next = next;
+		}
+
+		// helper to compute with the label of a neighbour: its new label if the
+		// range has moved it already, else its label from the last iteration
+		private int labelOf(int neighbour, int node) {
+			return neighbour >= start && neighbour < node ? next[neighbour] : labels[neighbour];
+		}
+
+		@Override
+		protected void compute() {
+			int[][] s = scratch.take();
+			int[] weight = s[0];
+			int moved = 0;
+			for (int i = start; i < end; i++) {
+				int[] touched = s[1];
+				int numTouched = 0;
+				for (int k = graph.followerStart(i); k < graph.followerEnd(i); k++) {
+					int label = labelOf(graph.followerAt(k), i);
+					if (weight[label] == 0) {
+						if (numTouched == touched.length) {
+							touched = s[1] = Arrays.copyOf(touched, numTouched * 2);
+						}
+						touched[numTouched++] = label;
+					}
+					weight[label] += graph.followerWeightAt(k);
+				}
+				for (int k = graph.followedStart(i); k < graph.followedEnd(i); k++) {
+					int label = labelOf(graph.followedAt(k), i);
+					if (weight[label] == 0) {
+						if (numTouched == touched.length) {
+							touched = s[1] = Arrays.copyOf(touched, numTouched * 2);
+						}
+						touched[numTouched++] = label;
+					}
+					weight[label] += graph.followedWeightAt(k);
+				}
+				int current = labels[i];
+				int best = current;
+				int bestWeight = weight[current];
+				for (int t = 0; t < numTouched; t++) {
+					int label = touched[t];
+					if (weight[label] > bestWeight || (weight[label] == bestWeight && best != current && label < best)) {
+						best = label;
+						bestWeight = weight[label];
+					}
+					weight[label] = 0;
+				}
+				next[i] = best;
+				if (best != current) {
+					moved++;
+				}
+			}
+			this.moved = moved;
+			scratch.giveBack(s);
+		}
+	}
+
+}
@@ -1,6 +1,8 @@
 package influencer;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -9,6 +11,10 @@ import java.util.Map;
  * node number of the other node keyed to the weight of the edge (how many times
  * this node and the other retweeted.
  * 
+ * getFollowers() and getNodesIFollow() hand out copies. Code in the package
+ * walks the edges without copying through forEachFollower/forEachNodeIFollow,
+ * an EdgeCursor, or the read only views.
+ * 
  * @author hillary
  * 
  *
@@ -20,6 +26,15 @@ public class GraphNode implements Comparable<GraphNode> {
 	private Map<Integer, Integer> nodesIFollow;
 	private int totalRetweetsMade;
 	private int totalTimesRetweeted;
+	private Map<Integer, Integer> followerView;
+	private Map<Integer, Integer> nodesIFollowView;
+
+	/**
+	 * Receives the edges of forEachFollower and forEachNodeIFollow one at a time
+	 */
+	interface EdgeVisitor {
+		void visit(int nodeNum, int weight);
+	}
 
 	/**
 	 * @param nodeNum --value assigned to this node
@@ -30,6 +45,24 @@ public class GraphNode implements Comparable<GraphNode> {
 		this.nodesIFollow = new HashMap<Integer, Integer>();
 	}
 
+	/**
+	 * Copies another node's edges and totals
+	 * 
+	 * @param other --node to copy
+	 */
+	GraphNode(GraphNode other) {
+		this.nodeNum = other.nodeNum;
+		this.followerNodes = new HashMap<Integer, Integer>(other.followerNodes);
+		this.nodesIFollow = new HashMap<Integer, Integer>(other.nodesIFollow);
+		this.totalRetweetsMade = other.totalRetweetsMade;
+		this.totalTimesRetweeted = other.totalTimesRetweeted;
+	}
+
+	// helper that sizes a map so it holds size entries without resizing
+	static int capacityFor(int size) {
+		return (int) (size / 0.75f) + 1;
+	}
+
 	/**
 	 * @param nodeNum --value of the other node that retweeted this node
 	 */
@@ -54,6 +87,24 @@ public class GraphNode implements Comparable<GraphNode> {
 		totalRetweetsMade++;
 	}
 
+	/**
+	 * @param nodeNum --value of the other node that retweeted this node
+	 * @param weight  --how many times it did
+	 */
+	public void addFollowerNode(int nodeNum, int weight) {
+		followerNodes.merge(nodeNum, weight, Integer::sum);
+		totalTimesRetweeted += weight;
+	}
+
+	/**
+	 * @param nodeNum --value of the other node that I retweeted
+	 * @param weight  --how many times I did
+	 */
+	public void addNodeIFollow(int nodeNum, int weight) {
+		nodesIFollow.merge(nodeNum, weight, Integer::sum);
+		totalRetweetsMade += weight;
+	}
+
 	public HashMap<Integer, Integer> getFollowers() {
 		return new HashMap<Integer, Integer>(followerNodes);
 	}
@@ -62,6 +113,56 @@ public class GraphNode implements Comparable<GraphNode> {
 		return new HashMap<Integer, Integer>(nodesIFollow);
 	}
 
+	/**
+	 * @param visitor -- called with the node number and edge weight of each node
+	 *                that retweeted this node
+	 */
+	void forEachFollower(EdgeVisitor visitor) {
+		for (Map.Entry<Integer, Integer> edge : followerNodes.entrySet()) {
+			visitor.visit(edge.getKey(), edge.getValue());
+		}
+	}
+
+	/**
+	 * @param visitor -- called with the node number and edge weight of each node
+	 *                this node retweeted
+	 */
+	void forEachNodeIFollow(EdgeVisitor visitor) {
+		for (Map.Entry<Integer, Integer> edge : nodesIFollow.entrySet()) {
+			visitor.visit(edge.getKey(), edge.getValue());
+		}
+	}
+
+	/**
+	 * @return read only view of the followers, keyed to edge weight, that
+	 *         follows later changes to this node
+	 */
+	Map<Integer, Integer> followersView() {
+		if (followerView == null) {
+			followerView = Collections.unmodifiableMap(followerNodes);
+		}
+		return followerView;
+	}
+
+	/**
+	 * @return read only view of the nodes this node follows, keyed to edge
+	 *         weight, that follows later changes to this node
+	 */
+	Map<Integer, Integer> nodesIFollowView() {
+		if (nodesIFollowView == null) {
+			nodesIFollowView = Collections.unmodifiableMap(nodesIFollow);
+		}
+		return nodesIFollowView;
+	}
+
+	public int getNumFollowers() {
+		return followerNodes.size();
+	}
+
+	public int getNumNodesIFollow() {
+		return nodesIFollow.size();
+	}
+
 	public int getNodeNum() {
 		return nodeNum;
 	}
@@ -74,6 +175,57 @@ public class GraphNode implements Comparable<GraphNode> {
 		return totalTimesRetweeted;
 	}
 
+	/**
+	 * Cursor over the edges of one node that reads primitive values, for loops
+	 * that can not use a callback. One cursor can be pointed at node after node
+	 * 
+	 * <pre>
+	 * for (cursor.overNodesIFollow(node); cursor.next();) {
+	 * 	use(cursor.nodeNum(), cursor.weight());
+	 * }
+	 * </pre>
+	 */
+	static final class EdgeCursor {
+		private Iterator<Map.Entry<Integer, Integer>> edges;
+		private int nodeNum;
+		private int weight;
+
+		/**
+		 * @param node -- node whose followers to walk
+		 */
+		void overFollowers(GraphNode node) {
+			edges = node.followerNodes.entrySet().iterator();
+		}
+
+		/**
+		 * @param node -- node whose followed nodes to walk
+		 */
+		void overNodesIFollow(GraphNode node) {
+			edges = node.nodesIFollow.entrySet().iterator();
+		}
+
+		/**
+		 * @return whether the cursor moved to another edge
+		 */
+		boolean next() {
+			if (edges == null || !edges.hasNext()) {
+				return false;
+			}
+			Map.Entry<Integer, Integer> edge = edges.next();
+			nodeNum = edge.getKey();
+			weight = edge.getValue();
+			return true;
+		}
+
+		int nodeNum() {
+			return nodeNum;
+		}
+
+		int weight() {
+			return weight;
+		}
+	}
+
 	@Override
 	public String toString() {
 		return getNodeNum() + " following: " + nodesIFollow + " and followed by: " + followerNodes + " Made "
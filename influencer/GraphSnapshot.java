@@ -0,0 +1,218 @@
+package influencer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Binary on disk format for a frozen graph so repeated analysis runs can skip
+ * parsing the text edge list. The file is a header followed by little endian
+ * int sections:
+ *
+ * <pre>
+ * header:  magic, version, numNodes, numEdges, CRC32 of everything after the header (long)
+ * ids:     nodeNums[numNodes]
+ * in:      followerOffsets[numNodes + 1], followers[numEdges], followerWeights[numEdges]
+ * out:     followedOffsets[numNodes + 1], followed[numEdges], followedWeights[numEdges]
+ * totals:  totalTimesRetweeted[numNodes], totalRetweetsMade[numNodes]
+ * </pre>
+ *
+ * Reopening memory maps each section and the CsrGraph reads straight from the
+ * mapping, so nothing is parsed or copied onto the heap.
+ *
+ * @author Hillary
+ */
+public class GraphSnapshot {
+
+	private static final int MAGIC = 0x534D4753;
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 24;
+	private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+	/**
+	 * Writes the graph to a snapshot file, replacing the file if it exists
+	 *
+	 * @param graph    -- frozen graph to save
+	 * @param filename -- where the snapshot is written
+	 * @throws IOException if the file can not be written
+	 */
+	public static void save(CsrGraph graph, String filename) throws IOException {
+		int numNodes = graph.getNumNodes();
+		int numEdges = graph.getNumEdges();
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			SectionWriter out = new SectionWriter(channel, HEADER_BYTES);
+			for (int i = 0; i < numNodes; i++) {
+				out.putInt(graph.getNodeNum(i));
+			}
+			for (int i = 0; i <= numNodes; i++) {
+				out.putInt(i < numNodes ? graph.followerStart(i) : numEdges);
+			}
+			for (int k = 0; k < numEdges; k++) {
+				out.putInt(graph.followerAt(k));
+			}
+			for (int k = 0; k < numEdges; k++) {
+				out.putInt(graph.followerWeightAt(k));
+			}
+			for (int i = 0; i <= numNodes; i++) {
+				out.putInt(i < numNodes ? graph.followedStart(i) : numEdges);
+			}
+			for (int k = 0; k < numEdges; k++) {
+				out.putInt(graph.followedAt(k));
+			}
+			for (int k = 0; k < numEdges; k++) {
+				out.putInt(graph.followedWeightAt(k));
+			}
+			for (int i = 0; i < numNodes; i++) {
+				out.putInt(graph.getTotalTimesRetweeted(i));
+			}
+			for (int i = 0; i < numNodes; i++) {
+				out.putInt(graph.getTotalRetweetsMade(i));
+			}
+			out.flush();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(numNodes).putInt(numEdges).putLong(out.checksum());
+			header.flip();
+			while (header.hasRemaining()) {
+				channel.write(header, header.position());
+			}
+		}
+	}
+
+	/**
+	 * Reopens a snapshot after checking its checksum
+	 *
+	 * @param filename -- snapshot written by save
+	 * @return graph backed by the memory mapped file
+	 * @throws IOException if the file can not be read or is not a valid snapshot
+	 */
+	public static CsrGraph open(String filename) throws IOException {
+		return open(filename, true);
+	}
+
+	/**
+	 * @param filename       -- snapshot written by save
+	 * @param verifyChecksum -- whether to read the whole file once to check it,
+	 *                       false gives the fastest startup
+	 * @return graph backed by the memory mapped file
+	 * @throws IOException if the file can not be read or is not a valid snapshot
+	 */
+	public static CsrGraph open(String filename, boolean verifyChecksum) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			while (header.hasRemaining()) {
+				if (channel.read(header, header.position()) < 0) {
+					break;
+				}
+			}
+			header.flip();
+			if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+				throw new IOException(filename + " is not a graph snapshot.");
+			}
+			if (header.getInt() != VERSION) {
+				throw new IOException(filename + " has an unsupported snapshot version.");
+			}
+			int numNodes = header.getInt();
+			int numEdges = header.getInt();
+			long checksum = header.getLong();
+			long expectedBytes = HEADER_BYTES + 4L * (5L * numNodes + 2 + 4L * numEdges);
+			if (numNodes < 0 || numEdges < 0 || channel.size() != expectedBytes) {
+				throw new IOException(filename + " is truncated or has a corrupt header.");
+			}
+			SectionReader in = new SectionReader(channel, HEADER_BYTES, verifyChecksum);
+			IntColumn nodeNums = in.next(numNodes);
+			IntColumn followerOffsets = in.next(numNodes + 1);
+			IntColumn followers = in.next(numEdges);
+			IntColumn followerWeights = in.next(numEdges);
+			IntColumn followedOffsets = in.next(numNodes + 1);
+			IntColumn followed = in.next(numEdges);
+			IntColumn followedWeights = in.next(numEdges);
+			IntColumn totalTimesRetweeted = in.next(numNodes);
+			IntColumn totalRetweetsMade = in.next(numNodes);
+			if (verifyChecksum && in.checksum() != checksum) {
+				throw new IOException(filename + " failed its checksum.");
+			}
+			// mappings stay valid after the channel is closed
+			return new CsrGraph(nodeNums, followerOffsets, followers, followerWeights, followedOffsets, followed,
+					followedWeights, totalTimesRetweeted, totalRetweetsMade);
+		}
+	}
+
+	/**
+	 * Buffers ints into little endian blocks, writing each block to the channel
+	 * and adding it to the running checksum
+	 */
+	private static final class SectionWriter {
+		private final FileChannel channel;
+		private final ByteBuffer buffer;
+		private final CRC32 crc;
+		private long position;
+
+		private SectionWriter(FileChannel channel, long position) {
+			this.channel = channel;
+			this.position = position;
+			this.buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			this.crc = new CRC32();
+		}
+
+		private void putInt(int value) throws IOException {
+			if (!buffer.hasRemaining()) {
+				flush();
+			}
+			buffer.putInt(value);
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+			crc.update(buffer.array(), 0, buffer.limit());
+			while (buffer.hasRemaining()) {
+				position += channel.write(buffer, position);
+			}
+			buffer.clear();
+		}
+
+		private long checksum() {
+			return crc.getValue();
+		}
+	}
+
+	/**
+	 * Maps consecutive int sections of the file and, when asked to, keeps the
+	 * checksum of everything mapped so far
+	 */
+	private static final class SectionReader {
+		private final FileChannel channel;
+		private final CRC32 crc;
+		private long position;
+
+		private SectionReader(FileChannel channel, long position, boolean verifyChecksum) {
+			this.channel = channel;
+			this.position = position;
+			this.crc = verifyChecksum ? new CRC32() : null;
+		}
+
+		private IntColumn next(int length) throws IOException {
+			long bytes = 4L * length;
+			if (bytes > Integer.MAX_VALUE) {
+				throw new IOException("Snapshot section of " + length + " ints is too large to map.");
+			}
+			ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes);
+			position += bytes;
+			if (crc != null) {
+				crc.update(mapped.duplicate());
+			}
+			IntBuffer ints = mapped.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			return IntColumn.of(ints);
+		}
+
+		private long checksum() {
+			return crc.getValue();
+		}
+	}
+
+}
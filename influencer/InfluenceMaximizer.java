@@ -0,0 +1,322 @@
+package influencer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Picks seeds that maximize the final spread of the threshold cascade of
+ * CascadeModelingWithInfluencers, instead of ranking by retweet count alone.
+ * Greedy: each round adds the node with the largest marginal gain in spread.
+ *
+ * Gains are evaluated lazily with CELF++. A node's gain from an earlier round
+ * is an upper bound on its gain now, so nodes sit in a max heap by their last
+ * gain and only the top is recomputed until a node's gain is current. When a
+ * node's gain is recomputed, its gain given the best node of the round so far
+ * is computed too; if that node becomes the next seed, the stored gain is
+ * already current. Stale nodes are taken off the top in fixed size batches and
+ * recomputed in parallel on a fork join pool; the batch size does not depend
+ * on the pool, so the same graph always gives the same seeds.
+ *
+ * The threshold cascade is not submodular: a node's gain can grow once other
+ * seeds have weakened its followers, so the stored bound can be too low and
+ * lazy greedy may pick differently than plain greedy would. The final spread
+ * stays close to plain greedy's for a fraction of the cascade runs.
+ *
+ * @author Hillary
+ */
+public class InfluenceMaximizer {
+
+	/**
+	 * One chosen seed
+	 */
+	public static final class Seed {
+		private final int nodeNum;
+		private final int marginalGain;
+		private final int spread;
+
+		private Seed(int nodeNum, int marginalGain, int spread) {
+			this.nodeNum = nodeNum;
+			this.marginalGain = marginalGain;
+			this.spread = spread;
+		}
+
+		public int getNodeNum() {
+			return nodeNum;
+		}
+
+		/**
+		 * @return how many more nodes end up active with this seed added
+		 */
+		public int getMarginalGain() {
+			return marginalGain;
+		}
+
+		/**
+		 * @return final active nodes of the cascade from this and all earlier
+		 *         seeds
+		 */
+		public int getSpread() {
+			return spread;
+		}
+
+		@Override
+		public String toString() {
+			return nodeNum + " (+" + marginalGain + ", spread " + spread + ")";
+		}
+	}
+
+	// stale candidates recomputed together, one fork join task each
+	private static final int BATCH_SIZE = 8;
+
+	private final CsrGraph graph;
+	private final int iterations;
+	private final int rewardForInertia;
+	private final int rewardForChange;
+	private final ForkJoinPool pool;
+	private final CascadeModelingWithInfluencers cascade;
+	private long evaluations;
+
+	/**
+	 * @param graph            -- frozen graph to run the cascade on
+	 * @param iterations       -- generations of each cascade
+	 * @param rewardForInertia -- reward given for remaining inactive
+	 * @param rewardForChange  -- reward given for changing behavior
+	 */
+	public InfluenceMaximizer(CsrGraph graph, int iterations, int rewardForInertia, int rewardForChange) {
+		this(graph, iterations, rewardForInertia, rewardForChange, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param graph            -- frozen graph to run the cascade on
+	 * @param iterations       -- generations of each cascade
+	 * @param rewardForInertia -- reward given for remaining inactive
+	 * @param rewardForChange  -- reward given for changing behavior
+	 * @param pool             -- threads for the gain evaluations, null to run
+	 *                         them on the calling thread
+	 */
+	public InfluenceMaximizer(CsrGraph graph, int iterations, int rewardForInertia, int rewardForChange,
+			ForkJoinPool pool) {
+		if (iterations <= 0 || rewardForInertia <= 0 || rewardForChange <= 0) {
+			throw new IllegalArgumentException("Iterations and reward values must be positive integers.");
+		}
+		this.graph = graph;
+		this.iterations = iterations;
+		this.rewardForInertia = rewardForInertia;
+		this.rewardForChange = rewardForChange;
+		this.pool = pool;
+		this.cascade = new CascadeModelingWithInfluencers(graph, CascadeModelingWithInfluencers.Engine.INCREMENTAL);
+	}
+
+	/**
+	 * Considers every node with at least one follower
+	 *
+	 * @param howMany -- seed budget
+	 * @return seeds in the order chosen, with their marginal gains
+	 */
+	public List<Seed> selectSeeds(int howMany) {
+		List<Integer> candidates = new ArrayList<Integer>();
+		for (int i = 0; i < graph.getNumNodes(); i++) {
+			if (graph.followerEnd(i) > graph.followerStart(i)) {
+				candidates.add(i);
+			}
+		}
+		return select(howMany, candidates);
+	}
+
+	/**
+	 * Only considers the most retweeted nodes, which keeps the first round cheap
+	 * on big graphs
+	 *
+	 * @param howMany       -- seed budget
+	 * @param candidatePool -- how many of the most retweeted nodes to consider
+	 * @return seeds in the order chosen, with their marginal gains
+	 */
+	public List<Seed> selectSeeds(int howMany, int candidatePool) {
+		if (candidatePool <= 0) {
+			throw new IllegalArgumentException("Candidate pool must be a positive integer.");
+		}
+		List<Integer> candidates = new ArrayList<Integer>();
+		for (int nodeNum : graph.findInfluencers(Math.min(candidatePool, graph.getNumNodes()))) {
+			candidates.add(graph.indexOf(nodeNum));
+		}
+		return select(howMany, candidates);
+	}
+
+	/**
+	 * @return cascade runs made by the last selectSeeds call
+	 */
+	public long getEvaluations() {
+		return evaluations;
+	}
+
+	// helper to selectSeeds that runs lazy greedy over the candidate indices
+	private List<Seed> select(int howMany, List<Integer> candidateIndices) {
+		if (howMany <= 0) {
+			throw new IllegalArgumentException("Number of seeds must be a positive integer.");
+		}
+		evaluations = 0;
+		ScratchPool<CascadeModelingWithInfluencers.Scratch> scratch = new ScratchPool<CascadeModelingWithInfluencers.Scratch>(
+				() -> new CascadeModelingWithInfluencers.Scratch(graph.getNumNodes()));
+		List<Integer> seeds = new ArrayList<Integer>();
+		List<Seed> chosen = new ArrayList<Seed>();
+		List<Candidate> first = new ArrayList<Candidate>(candidateIndices.size());
+		for (int index : candidateIndices) {
+			first.add(new Candidate(graph.getNodeNum(index)));
+		}
+		evaluate(first, seeds, 0, null, 0, scratch);
+		PriorityQueue<Candidate> heap = new PriorityQueue<Candidate>(first);
+		int spread = 0;
+		Candidate lastSeed = null;
+		while (chosen.size() < howMany && !heap.isEmpty()) {
+			int round = seeds.size();
+			Candidate best = null;
+			int spreadWithBest = 0;
+			while (true) {
+				Candidate top = heap.peek();
+				if (top.round == round) {
+					heap.poll();
+					seeds.add(top.nodeNum);
+					spread += top.gain;
+					chosen.add(new Seed(top.nodeNum, top.gain, spread));
+					lastSeed = top;
+					break;
+				}
+				List<Candidate> stale = new ArrayList<Candidate>();
+				while (!heap.isEmpty() && heap.peek().round != round && stale.size() < BATCH_SIZE) {
+					Candidate next = heap.poll();
+					if (next.round == round - 1 && next.previousBest == lastSeed && lastSeed != null) {
+						// CELF++: the gain given the new seed was computed last round
+						next.gain = next.gainAfterBest;
+						next.round = round;
+						next.previousBest = null;
+						heap.add(next);
+					} else {
+						stale.add(next);
+					}
+				}
+				if (stale.isEmpty()) {
+					continue;
+				}
+				evaluate(stale, seeds, spread, best, spreadWithBest, scratch);
+				heap.addAll(stale);
+				for (Candidate candidate : stale) {
+					if (best == null || candidate.compareTo(best) < 0) {
+						best = candidate;
+						List<Integer> withBest = new ArrayList<Integer>(seeds);
+						withBest.add(best.nodeNum);
+						spreadWithBest = spreadOf(withBest, scratch);
+					}
+				}
+			}
+		}
+		return chosen;
+	}
+
+	// helper to select that brings the candidates' gains up to date for the
+	// current seeds, and their gains given best as well if there is one
+	private void evaluate(List<Candidate> candidates, List<Integer> seeds, int spread, Candidate best,
+			int spreadWithBest, ScratchPool<CascadeModelingWithInfluencers.Scratch> scratch) {
+		List<Evaluation> tasks = new ArrayList<Evaluation>(candidates.size());
+		for (Candidate candidate : candidates) {
+			tasks.add(new Evaluation(candidate, seeds, spread, best, spreadWithBest, scratch));
+		}
+		ChunkRunner.run(pool, tasks);
+		evaluations += best == null ? candidates.size() : 2L * candidates.size();
+	}
+
+	// helper that runs the cascade from a set of seeds, on a scratch taken from
+	// the pool, and counts the final active nodes
+	private int spreadOf(List<Integer> seedNodeNums, ScratchPool<CascadeModelingWithInfluencers.Scratch> scratch) {
+		if (seedNodeNums.isEmpty()) {
+			return 0;
+		}
+		CascadeModelingWithInfluencers.Scratch s = scratch.take();
+		int spread = cascade.modelResult(iterations, seedNodeNums, rewardForInertia, rewardForChange, s)
+				.getTotalActive();
+		scratch.giveBack(s);
+		return spread;
+	}
+
+	/**
+	 * Lazy greedy state of one node. Ordered by gain, highest first, ties to the
+	 * lower node number
+	 */
+	private static final class Candidate implements Comparable<Candidate> {
+		private final int nodeNum;
+		private int gain;
+		private int round = -1;
+		private Candidate previousBest;
+		private int gainAfterBest;
+
+		private Candidate(int nodeNum) {
+			this.nodeNum = nodeNum;
+		}
+
+		@Override
+		public int compareTo(Candidate other) {
+			if (gain != other.gain) {
+				return gain > other.gain ? -1 : 1;
+			}
+			return Integer.compare(nodeNum, other.nodeNum);
+		}
+	}
+
+	/**
+	 * Recomputes one candidate's gain on whichever pool thread picks it up
+	 */
+	private final class Evaluation extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Candidate candidate;
+		private final List<Integer> seeds;
+		private final int spread;
+		private final Candidate best;
+		private final int spreadWithBest;
+		private final ScratchPool<CascadeModelingWithInfluencers.Scratch> scratch;
+
+		private Evaluation(Candidate candidate, List<Integer> seeds, int spread, Candidate best,
+				int spreadWithBest, ScratchPool<CascadeModelingWithInfluencers.Scratch> scratch) {
+			this.candidate = candidate;
+			this.seeds = seeds;
+			this.spread = spread;
+			this.best = best;
+			this.spreadWithBest = spreadWithBest;
+			this.scratch = scratch;
+		}
+
+		@Override
+		protected void compute() {
+			List<Integer> with = new ArrayList<Integer>(seeds.size() + 2);
+			with.addAll(seeds);
+			with.add(candidate.nodeNum);
+			candidate.gain = spreadOf(with, scratch) - spread;
+			candidate.round = seeds.size();
+			candidate.previousBest = best;
+			if (best != null) {
+				with.add(best.nodeNum);
+				candidate.gainAfterBest = spreadOf(with, scratch) - spreadWithBest;
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Influence maximizer on " + graph + " with rewards " + rewardForInertia + ":" + rewardForChange
+				+ " and " + iterations + " iterations";
+	}
+
+	/**
+	 * @return node numbers of the seeds, for the model methods
+	 */
+	public static List<Integer> nodeNums(List<Seed> seeds) {
+		List<Integer> nodeNums = new ArrayList<Integer>(seeds.size());
+		for (Seed seed : seeds) {
+			nodeNums.add(seed.nodeNum);
+		}
+		return Collections.unmodifiableList(nodeNums);
+	}
+
+}
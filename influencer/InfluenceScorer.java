@@ -0,0 +1,29 @@
+package influencer;
+
+/**
+ * Scores every node of a frozen graph for CsrGraph.findInfluencers, so the
+ * influencers can be ranked by something other than times retweeted
+ *
+ * @author Hillary
+ */
+public interface InfluenceScorer {
+
+	/**
+	 * Ranks by total times retweeted, the same order as findInfluencers(howMany)
+	 */
+	InfluenceScorer TIMES_RETWEETED = graph -> {
+		float[] scores = new float[graph.getNumNodes()];
+		for (int i = 0; i < scores.length; i++) {
+			scores[i] = graph.getTotalTimesRetweeted(i);
+		}
+		return scores;
+	};
+
+	/**
+	 * @param graph -- graph to score
+	 * @return a score per dense index, higher is more influential. Scores must
+	 *         be finite and not negative
+	 */
+	float[] score(CsrGraph graph);
+
+}
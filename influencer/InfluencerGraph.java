@@ -1,17 +1,24 @@
 package influencer;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Extends Graph and provides functionality for analyzing graph results centered
  * around an influential node in a network
  * 
+ * Graph.getInfluencerGraphs returns views: the frozen parent graph plus a
+ * bitmap of the nodes the influencer reaches. A view shares the parent's
+ * adjacency, can not be changed, and only copies its own part of the graph if
+ * freeze(), deepCopy() or graphInfo() is called
+ * 
  * @author hillary
  * 
  */
@@ -19,9 +26,37 @@ public class InfluencerGraph extends Graph {
 
 	private final int influentialNodeNum;
 
+	// set for views only: the parent graph and the members as a bitmap over its
+	// dense indices
+	private final CsrGraph source;
+	private final long[] members;
+	private final int numMembers;
+	private CsrGraph subgraph;
+	private Graph nodeCopy;
+
 	public InfluencerGraph(int nodeNum) {
 		super();
 		this.influentialNodeNum = nodeNum;
+		this.source = null;
+		this.members = null;
+		this.numMembers = 0;
+	}
+
+	/**
+	 * View over part of a frozen graph
+	 * 
+	 * @param source     -- frozen parent graph
+	 * @param nodeNum    -- influential node
+	 * @param members    -- bitmap over the parent's dense indices of the nodes in
+	 *                   the view, not copied
+	 * @param numMembers -- how many bits are set in members
+	 */
+	InfluencerGraph(CsrGraph source, int nodeNum, long[] members, int numMembers) {
+		super();
+		this.influentialNodeNum = nodeNum;
+		this.source = source;
+		this.members = members;
+		this.numMembers = numMembers;
 	}
 
 	/**
@@ -29,8 +64,10 @@ public class InfluencerGraph extends Graph {
 	 * and another node within its sphere of reach
 	 */
 	public List<Integer> getShortestPath(int otherNode) {
-		Map<Integer, GraphNode> nodes = getAllNodes();
-		if (!nodes.containsKey(otherNode) || !nodes.containsKey(influentialNodeNum)) {
+		CsrGraph csr = searchGraph();
+		int influencerIndex = csr.indexOf(influentialNodeNum);
+		int otherIndex = csr.indexOf(otherNode);
+		if (otherIndex < 0 || influencerIndex < 0 || !isMember(otherIndex)) {
 			System.out.println("Nodes are invalid.  No path.");
 			return null;
 		}
@@ -38,34 +75,98 @@ public class InfluencerGraph extends Graph {
 			return null;
 		}
 		boolean pathFound = false;
-		Map<Integer, Integer> parentMap = new HashMap<Integer, Integer>();
-		pathFound = performBFS(otherNode, parentMap, nodes);
+		int[] parents = new int[csr.getNumNodes()];
+		Arrays.fill(parents, -1);
+		pathFound = performBFS(csr, influencerIndex, otherIndex, parents);
 		if (pathFound) {
-			return getPath(otherNode, parentMap);
+			return getPath(csr, influencerIndex, otherIndex, parents);
 		} else {
 			return null;
 		}
 	}
 
-	// helper to getShortestPath that finds the shortest path
-	private boolean performBFS(int outerNode, Map<Integer, Integer> parentMap, Map<Integer, GraphNode> nodes) {
-		Set<Integer> visited = new HashSet<Integer>();
-		Queue<Integer> toExplore = new LinkedList<Integer>();
+	/**
+	 * Runs one breadth first search from the influencer that answers the shortest
+	 * path to every node at once. Use it instead of calling getShortestPath for
+	 * many nodes
+	 * 
+	 * @return parent and depth of every node reached from the influencer
+	 */
+	public ShortestPathTree getShortestPathTree() {
+		CsrGraph csr = searchGraph();
+		int influencerIndex = csr.indexOf(influentialNodeNum);
+		if (influencerIndex < 0) {
+			throw new IllegalStateException("Influential node " + influentialNodeNum + " is not in this graph.");
+		}
+		return ShortestPathTree.build(csr, influencerIndex);
+	}
+
+	/**
+	 * Direction optimizing breadth first search from the influencer, see
+	 * ReachAnalysis
+	 * 
+	 * @return reach size, depth histogram and visited set of the influencer
+	 */
+	public ReachAnalysis analyzeReach() {
+		return analyzeReach(null);
+	}
+
+	/**
+	 * @param pool -- threads for the bottom up levels of the search, null to stay
+	 *             on the calling thread
+	 * @return reach size, depth histogram and visited set of the influencer
+	 */
+	public ReachAnalysis analyzeReach(ForkJoinPool pool) {
+		return ReachAnalysis.of(searchGraph(), influentialNodeNum, pool);
+	}
+
+	/**
+	 * Betweenness and closeness of the nodes in this graph, to find the users
+	 * that act as bridges in the influencer's cascade. A view is analyzed in
+	 * place on its parent
+	 *
+	 * @param pool -- threads for the searches, null to stay on the calling thread
+	 * @return estimator over the nodes of this graph
+	 */
+	public CentralityEstimator centrality(ForkJoinPool pool) {
+		if (source != null) {
+			return new CentralityEstimator(source, members, numMembers, pool);
+		}
+		return new CentralityEstimator(freeze(), pool);
+	}
+
+	// helper that picks the graph to search from the influencer. A view searches
+	// its parent directly: every node a view's influencer reaches in the parent
+	// is a member, so the search never leaves the view
+	private CsrGraph searchGraph() {
+		return source != null ? source : freeze();
+	}
+
+	// helper that checks a dense index of searchGraph() is part of this graph
+	private boolean isMember(int index) {
+		return members == null || (members[index >>> 6] & (1L << index)) != 0;
+	}
+
+	// helper to getShortestPath that finds the shortest path. parents doubles as
+	// the visited set, -1 meaning not reached yet
+	private boolean performBFS(CsrGraph csr, int influencerIndex, int outerIndex, int[] parents) {
+		int[] toExplore = new int[csr.getNumNodes()];
+		int head = 0;
+		int tail = 0;
 		boolean found = false;
-		toExplore.add(influentialNodeNum);
-		while (!toExplore.isEmpty()) {
-			int currNum = toExplore.remove();
-			if (currNum == outerNode) {
+		toExplore[tail++] = influencerIndex;
+		parents[influencerIndex] = influencerIndex;
+		while (head < tail) {
+			int curr = toExplore[head++];
+			if (curr == outerIndex) {
 				found = true;
 				break;
 			}
-			GraphNode currNode = nodes.get(currNum);
-			Set<Integer> followers = currNode.getFollowers().keySet();
-			for (int follower : followers) {
-				if (!visited.contains(follower)) {
-					toExplore.add(follower);
-					visited.add(follower);
-					parentMap.put(follower, currNum);
+			for (int k = csr.followerStart(curr); k < csr.followerEnd(curr); k++) {
+				int follower = csr.followerAt(k);
+				if (parents[follower] < 0) {
+					toExplore[tail++] = follower;
+					parents[follower] = curr;
 				}
 			}
 		}
@@ -73,13 +174,13 @@ public class InfluencerGraph extends Graph {
 	}
 
 	// helper to getShortestPath that recreates the path
-	private List<Integer> getPath(int outerNode, Map<Integer, Integer> parentMap) {
+	private List<Integer> getPath(CsrGraph csr, int influencerIndex, int outerIndex, int[] parents) {
 		List<Integer> bestPath = new LinkedList<Integer>();
-		bestPath.add(outerNode);
-		int next = parentMap.get(outerNode);
-		while (next != influentialNodeNum) {
-			bestPath.add(next);
-			next = parentMap.get(next);
+		bestPath.add(csr.getNodeNum(outerIndex));
+		int next = parents[outerIndex];
+		while (next != influencerIndex) {
+			bestPath.add(csr.getNodeNum(next));
+			next = parents[next];
 		}
 		bestPath.add(influentialNodeNum);
 		return bestPath;
@@ -94,4 +195,181 @@ public class InfluencerGraph extends Graph {
 		return influentialNodeNum;
 	}
 
+	/**
+	 * @return whether this graph is a view over a parent graph, which can not be
+	 *         changed
+	 */
+	public boolean isView() {
+		return source != null;
+	}
+
+	@Override
+	public void addVertex(int num) {
+		checkNotView();
+		super.addVertex(num);
+	}
+
+	@Override
+	public void addEdge(int from, int to) {
+		checkNotView();
+		super.addEdge(from, to);
+	}
+
+	@Override
+	public void addEdge(int from, int to, int weight) {
+		checkNotView();
+		super.addEdge(from, to, weight);
+	}
+
+	@Override
+	public void addEdges(int[] from, int[] to, int numEdges) {
+		checkNotView();
+		super.addEdges(from, to, numEdges);
+	}
+
+	@Override
+	public void addEdges(int[] from, int[] to, int[] weights, int numEdges) {
+		checkNotView();
+		super.addEdges(from, to, weights, numEdges);
+	}
+
+	// helper to the add methods that refuses to change a view
+	private void checkNotView() {
+		if (isView()) {
+			throw new UnsupportedOperationException("Influencer graph views can not be changed. Use deepCopy().");
+		}
+	}
+
+	/**
+	 * For a view, copies the view's nodes and the edges between them out of the
+	 * parent the first time it is called
+	 */
+	@Override
+	public CsrGraph freeze() {
+		if (!isView()) {
+			return super.freeze();
+		}
+		if (subgraph == null) {
+			subgraph = source.subgraph(members);
+		}
+		return subgraph;
+	}
+
+	/**
+	 * For a view, returns a changeable InfluencerGraph with the same nodes and
+	 * edges
+	 */
+	@Override
+	public Graph deepCopy() {
+		if (!isView()) {
+			return super.deepCopy();
+		}
+		CsrGraph csr = freeze();
+		InfluencerGraph newCopy = new InfluencerGraph(influentialNodeNum);
+		for (int i = 0; i < csr.getNumNodes(); i++) {
+			newCopy.addVertex(csr.getNodeNum(i));
+		}
+		for (int i = 0; i < csr.getNumNodes(); i++) {
+			for (int k = csr.followedStart(i); k < csr.followedEnd(i); k++) {
+				newCopy.addEdge(csr.getNodeNum(i), csr.getNodeNum(csr.followedAt(k)), csr.followedWeightAt(k));
+			}
+		}
+		return newCopy;
+	}
+
+	@Override
+	public String graphInfo() {
+		if (!isView()) {
+			return super.graphInfo();
+		}
+		CsrGraph csr = freeze();
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < csr.getNumNodes(); i++) {
+			sb.append(csr.nodeInfo(i) + "\n");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * For a view, nodes of a copy made on first use, since a view keeps no
+	 * GraphNode objects
+	 */
+	@Override
+	protected Map<Integer, GraphNode> getAllNodes() {
+		return isView() ? nodeCopy().getAllNodes() : super.getAllNodes();
+	}
+
+	@Override
+	protected GraphNode getOneNode(int nodeNum) {
+		return isView() ? nodeCopy().getOneNode(nodeNum) : super.getOneNode(nodeNum);
+	}
+
+	// helper to the node accessors that makes the copy of a view once
+	private Graph nodeCopy() {
+		if (nodeCopy == null) {
+			nodeCopy = deepCopy();
+		}
+		return nodeCopy;
+	}
+
+	@Override
+	public int getNumNodes() {
+		return isView() ? numMembers : super.getNumNodes();
+	}
+
+	/**
+	 * For a view, a read only set backed by the member bitmap
+	 */
+	@Override
+	public Set<Integer> getNodeNumbers() {
+		return isView() ? new MemberSet() : super.getNodeNumbers();
+	}
+
+	/**
+	 * Node numbers of a view's members, iterated in ascending order straight off
+	 * the bitmap
+	 */
+	private final class MemberSet extends AbstractSet<Integer> {
+
+		@Override
+		public int size() {
+			return numMembers;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Integer)) {
+				return false;
+			}
+			int index = source.indexOf((Integer) o);
+			return index >= 0 && isMember(index);
+		}
+
+		@Override
+		public Iterator<Integer> iterator() {
+			return new Iterator<Integer>() {
+				private int word = 0;
+				private long bits = members.length > 0 ? members[0] : 0L;
+
+				@Override
+				public boolean hasNext() {
+					while (bits == 0 && word + 1 < members.length) {
+						bits = members[++word];
+					}
+					return bits != 0;
+				}
+
+				@Override
+				public Integer next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+					bits &= bits - 1;
+					return source.getNodeNum(index);
+				}
+			};
+		}
+	}
+
 }
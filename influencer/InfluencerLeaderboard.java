@@ -0,0 +1,278 @@
+package influencer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import util.IntIntMap;
+
+/**
+ * Keeps the current top influencers up to date while retweet edges arrive one
+ * at a time, without re-sorting the graph. The top list is a sorted array of at
+ * most k nodes with an index from node number to position. Counts only go up,
+ * so an update moves the changed node up past the nodes it now beats and a
+ * query is an O(k) copy of the array.
+ *
+ * In EXACT mode the edges are added to a Graph, whose nodes keep their
+ * totalTimesRetweeted. In SPACE_SAVING mode only a fixed number of counters is
+ * kept (the space saving algorithm): an unseen node takes over the smallest
+ * counter, so memory is bounded and each count overestimates the true count by
+ * at most the number of edges seen divided by the number of counters.
+ *
+ * @author Hillary
+ */
+public class InfluencerLeaderboard {
+
+	/**
+	 * How retweet counts are kept
+	 */
+	public enum Mode {
+		EXACT, SPACE_SAVING
+	}
+
+	private final Mode mode;
+	private final int howMany;
+	private final Graph graph;
+
+	// top list sorted best first
+	private final int[] topNodes;
+	private final int[] topCounts;
+	private int topSize;
+	private final IntIntMap topPositions;
+
+	// space saving counters kept as a min heap on count
+	private final int[] counterNodes;
+	private final int[] counterCounts;
+	private final int[] counterErrors;
+	private int numCounters;
+	private final IntIntMap counterSlots;
+	private long edgesSeen;
+
+	/**
+	 * Exact leaderboard that adds every edge to the graph
+	 *
+	 * @param graph   -- graph to keep up to date, its current nodes are ranked
+	 *                first
+	 * @param howMany -- how many influential nodes to keep
+	 */
+	public InfluencerLeaderboard(Graph graph, int howMany) {
+		this(Mode.EXACT, graph, howMany, 0);
+		CsrGraph csr = graph.freeze();
+		for (int nodeNum : csr.findInfluencers(Math.min(howMany, csr.getNumNodes()))) {
+			offer(nodeNum, csr.getTotalTimesRetweeted(csr.indexOf(nodeNum)));
+		}
+	}
+
+	/**
+	 * Bounded memory leaderboard with approximate counts
+	 *
+	 * @param howMany  -- how many influential nodes to keep
+	 * @param counters -- how many nodes to count at once, at least howMany
+	 */
+	public InfluencerLeaderboard(int howMany, int counters) {
+		this(Mode.SPACE_SAVING, null, howMany, counters);
+		if (counters < howMany) {
+			throw new IllegalArgumentException("Need at least as many counters as influential nodes to keep.");
+		}
+	}
+
+	private InfluencerLeaderboard(Mode mode, Graph graph, int howMany, int counters) {
+		if (howMany <= 0) {
+			throw new IllegalArgumentException("Number of influential nodes must be a positive integer.");
+		}
+		this.mode = mode;
+		this.graph = graph;
+		this.howMany = howMany;
+		topNodes = new int[howMany];
+		topCounts = new int[howMany];
+		topPositions = new IntIntMap(howMany);
+		counterNodes = new int[counters];
+		counterCounts = new int[counters];
+		counterErrors = new int[counters];
+		counterSlots = new IntIntMap(counters);
+	}
+
+	/**
+	 * @param from -- node number of node who retweeted
+	 * @param to   -- node number of node that was retweeted
+	 */
+	public void addEdge(int from, int to) {
+		edgesSeen++;
+		if (mode == Mode.EXACT) {
+			graph.addVertex(from);
+			graph.addVertex(to);
+			graph.addEdge(from, to);
+			offer(to, graph.getOneNode(to).getTotalTimesRetweeted());
+		} else {
+			countSpaceSaving(to);
+		}
+	}
+
+	/**
+	 * @param from     -- node numbers of nodes who retweeted
+	 * @param to       -- node numbers of nodes that were retweeted, same
+	 *                 positions as from
+	 * @param numEdges -- how many entries of the arrays to add
+	 */
+	public void addEdges(int[] from, int[] to, int numEdges) {
+		for (int i = 0; i < numEdges; i++) {
+			addEdge(from[i], to[i]);
+		}
+	}
+
+	/**
+	 * @return current top node numbers, most retweeted first with ties to the
+	 *         lower node number
+	 */
+	public List<Integer> getTopInfluencers() {
+		List<Integer> top = new ArrayList<Integer>(topSize);
+		for (int i = 0; i < topSize; i++) {
+			top.add(topNodes[i]);
+		}
+		return top;
+	}
+
+	/**
+	 * @return retweet counts of getTopInfluencers(), in the same order. In
+	 *         SPACE_SAVING mode these are upper bounds
+	 */
+	public int[] getTopCounts() {
+		int[] counts = new int[topSize];
+		System.arraycopy(topCounts, 0, counts, 0, topSize);
+		return counts;
+	}
+
+	/**
+	 * @param nodeNum -- node to look up
+	 * @return how much a SPACE_SAVING count may overstate the true count, 0 for
+	 *         EXACT mode
+	 */
+	public int getMaxError(int nodeNum) {
+		int slot = counterSlots.get(nodeNum, -1);
+		return slot < 0 ? 0 : counterErrors[slot];
+	}
+
+	public long getEdgesSeen() {
+		return edgesSeen;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	// helper to addEdge that counts one retweet of nodeNum with the space saving
+	// counters
+	private void countSpaceSaving(int nodeNum) {
+		int slot = counterSlots.get(nodeNum, -1);
+		if (slot >= 0) {
+			counterCounts[slot]++;
+			siftDownCounter(slot);
+		} else if (numCounters < counterNodes.length) {
+			slot = numCounters++;
+			counterNodes[slot] = nodeNum;
+			counterCounts[slot] = 1;
+			counterErrors[slot] = 0;
+			counterSlots.put(nodeNum, slot);
+			siftUpCounter(slot);
+		} else {
+			int evicted = counterNodes[0];
+			counterSlots.remove(evicted);
+			counterNodes[0] = nodeNum;
+			counterErrors[0] = counterCounts[0];
+			counterCounts[0]++;
+			counterSlots.put(nodeNum, 0);
+			siftDownCounter(0);
+			if (topPositions.containsKey(evicted)) {
+				rebuildTop();
+				return;
+			}
+		}
+		offer(nodeNum, counterCounts[counterSlots.get(nodeNum, -1)]);
+	}
+
+	// helper to countSpaceSaving that refills the top list from the counters when
+	// a node on it loses its counter
+	private void rebuildTop() {
+		topPositions.clear();
+		topSize = 0;
+		for (int slot = 0; slot < numCounters; slot++) {
+			offer(counterNodes[slot], counterCounts[slot]);
+		}
+	}
+
+	// helper that puts nodeNum's new count on the top list if it belongs there
+	private void offer(int nodeNum, int count) {
+		int position = topPositions.get(nodeNum, -1);
+		if (position < 0) {
+			if (topSize < howMany) {
+				position = topSize++;
+			} else if (ranksAbove(count, nodeNum, topCounts[topSize - 1], topNodes[topSize - 1])) {
+				position = topSize - 1;
+				topPositions.remove(topNodes[position]);
+			} else {
+				return;
+			}
+		}
+		while (position > 0 && ranksAbove(count, nodeNum, topCounts[position - 1], topNodes[position - 1])) {
+			topNodes[position] = topNodes[position - 1];
+			topCounts[position] = topCounts[position - 1];
+			topPositions.put(topNodes[position], position);
+			position--;
+		}
+		topNodes[position] = nodeNum;
+		topCounts[position] = count;
+		topPositions.put(nodeNum, position);
+	}
+
+	// helper to offer with the same ordering as findInfluencers
+	private static boolean ranksAbove(int count, int nodeNum, int otherCount, int otherNodeNum) {
+		return count > otherCount || (count == otherCount && nodeNum < otherNodeNum);
+	}
+
+	// helper to countSpaceSaving that moves a counter towards the root
+	private void siftUpCounter(int slot) {
+		while (slot > 0) {
+			int parent = (slot - 1) >>> 1;
+			if (counterCounts[parent] <= counterCounts[slot]) {
+				break;
+			}
+			swapCounters(slot, parent);
+			slot = parent;
+		}
+	}
+
+	// helper to countSpaceSaving that moves a counter away from the root
+	private void siftDownCounter(int slot) {
+		while (2 * slot + 1 < numCounters) {
+			int child = 2 * slot + 1;
+			if (child + 1 < numCounters && counterCounts[child + 1] < counterCounts[child]) {
+				child++;
+			}
+			if (counterCounts[slot] <= counterCounts[child]) {
+				break;
+			}
+			swapCounters(slot, child);
+			slot = child;
+		}
+	}
+
+	// helper to the sift methods that swaps two counters and their index entries
+	private void swapCounters(int a, int b) {
+		int node = counterNodes[a];
+		int count = counterCounts[a];
+		int error = counterErrors[a];
+		counterNodes[a] = counterNodes[b];
+		counterCounts[a] = counterCounts[b];
+		counterErrors[a] = counterErrors[b];
+		counterNodes[b] = node;
+		counterCounts[b] = count;
+		counterErrors[b] = error;
+		counterSlots.put(counterNodes[a], a);
+		counterSlots.put(counterNodes[b], b);
+	}
+
+	@Override
+	public String toString() {
+		return "Leaderboard (" + mode + ") of top " + topSize + " after " + edgesSeen + " edges";
+	}
+
+}
@@ -1,15 +1,17 @@
 package influencer;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Scanner;
 import java.util.Set;
 
-import util.GraphLoader;
+import util.AsyncOutputWriter;
+import util.FastGraphLoader;
+import util.LoadReport;
 import util.OutputPrinter;
 
 /**
@@ -22,6 +24,10 @@ import util.OutputPrinter;
  */
 public class InfluencerModelingApp {
 
+	// every output file goes through one buffered handle, written in the
+	// background
+	private final AsyncOutputWriter writer = new AsyncOutputWriter();
+
 	public static void main(String[] args) {
 		InfluencerModelingApp app = new InfluencerModelingApp();
 		Scanner scanner = new Scanner(System.in);
@@ -34,18 +40,65 @@ public class InfluencerModelingApp {
 		List<Integer> influentialNodes = app.runFindInfluencersProgram(scanner, false, graph, inputFileName);
 		app.runCascadeModelProgram(scanner, graph, influentialNodes, inputFileName);
 		scanner.close();
+		app.closeOutput();
 		System.out.println("done");
 
 	}
 
 	/**
-	 * Helper method to main() that creates the graph with the GraphLoader class and
-	 * returns a deep copy for manipulation by the programs
+	 * Helper method to main() that waits for the output files to be written
+	 */
+	private void closeOutput() {
+		try {
+			writer.close();
+		} catch (IOException e) {
+			System.out.println("Error when writing output files: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Helper method to main() that reopens the GraphSnapshot saved next to the
+	 * edge list by an earlier run. Without an up to date snapshot it creates the
+	 * graph with the FastGraphLoader class and saves one for the next run
 	 */
 	private Graph createGraph(String filePath) {
+		File edgeList = new File(filePath);
+		File snapshot = new File(snapshotPath(filePath));
+		if (snapshot.isFile() && snapshot.lastModified() >= edgeList.lastModified()) {
+			try {
+				long start = System.nanoTime();
+				Graph g = Graph.fromFrozen(GraphSnapshot.open(snapshot.getPath()));
+				System.out.println("Reopened " + snapshot.getPath() + " in " + (System.nanoTime() - start) / 1000000
+						+ " ms");
+				return g;
+			} catch (IOException e) {
+				System.out.println("Could not reopen " + snapshot.getPath() + ", parsing the edge list: "
+						+ e.getMessage());
+			}
+		}
 		Graph g = new Graph();
-		GraphLoader.loadGraph(g, filePath);
-		return g.deepCopy();
+		LoadReport report = FastGraphLoader.loadGraph(g, filePath, true);
+		if (report == null) {
+			// do not model a graph that only has part of the file
+			return new Graph();
+		}
+		System.out.println(report);
+		try {
+			GraphSnapshot.save(g.freeze(), snapshot.getPath());
+		} catch (IOException e) {
+			System.out.println("Could not save " + snapshot.getPath() + ": " + e.getMessage());
+		}
+		return g;
+	}
+
+	/**
+	 * Helper to createGraph that names the snapshot of an edge list: the same
+	 * path with .snapshot in place of the extension
+	 */
+	private String snapshotPath(String filePath) {
+		int dot = filePath.lastIndexOf('.');
+		boolean hasExtension = dot > filePath.lastIndexOf('/');
+		return (hasExtension ? filePath.substring(0, dot) : filePath) + ".snapshot";
 	}
 
 	/**
@@ -59,7 +112,7 @@ public class InfluencerModelingApp {
 	 *         cascade model program to run
 	 */
 	private List<Integer> runFindInfluencersProgram(Scanner scanner, boolean print, Graph graph, String inputFileName) {
-		OutputPrinter printer = new OutputPrinter();
+		OutputPrinter printer = new OutputPrinter(writer);
 		String outputFilePath = "data/output/InfluencerInfoFrom" + inputFileName + ".txt";
 		String networkInfo = graph.toString();
 		File outputFile = printer.fileCreationForInfluencerInfo(outputFilePath, networkInfo);
@@ -121,8 +174,8 @@ public class InfluencerModelingApp {
 
 	/**
 	 * Optional helper to runFindInfluencersProgram that prints paths from network
-	 * nodes to the influential node. Essentially, this runs a breadth first search
-	 * and will be time consuming on large data sets.
+	 * nodes to the influential node. Essentially, this runs one breadth first
+	 * search per influencer graph.
 	 */
 	private void printInfluencerGraphPaths(Scanner scanner, boolean userChooses, List<Graph> influencerGraphs,
 			OutputPrinter printer, File outputFile) {
@@ -141,15 +194,15 @@ public class InfluencerModelingApp {
 	}
 
 	/**
-	 * Helper to printInfluencerGraphPaths that takes care of the printing
+	 * Helper to printInfluencerGraphPaths that takes care of the printing. All
+	 * paths come from one breadth first search
 	 */
 	private void printPaths(File outputFile, InfluencerGraph g, Set<Integer> nodesForPaths, OutputPrinter printer) {
+		ShortestPathTree tree = g.getShortestPathTree();
 		for (int node : nodesForPaths) {
-			List<Integer> path = g.getShortestPath(node);
+			List<Integer> path = tree.getPath(node);
 			if (path != null) {
-				String pathInfo = "Path from Node: " + node + " to Influencer node: " + g.getInfluentialNodeNum()
-						+ "--> ";
-				printer.printOutputShortestPathsToInfluencer(outputFile, pathInfo, path);
+				printer.printOutputShortestPathsToInfluencer(outputFile, node, g.getInfluentialNodeNum(), path);
 			}
 		}
 	}
@@ -204,17 +257,18 @@ public class InfluencerModelingApp {
 	 */
 	private void doCascade(Graph graph, List<Integer> influentialNodes, boolean seedingOne, int iterations,
 			int rewardForInertia, int rewardForChange, String inputFileName) {
-		CascadeModelingWithInfluencers cascade = new CascadeModelingWithInfluencers(graph);
+		CascadeModelingWithInfluencers cascade = new CascadeModelingWithInfluencers(graph.freeze(),
+				CascadeModelingWithInfluencers.Engine.INCREMENTAL);
 		if (seedingOne) {
 			for (int influentialNode : influentialNodes) {
-				Map<Integer, Set<Integer>> resultMap = cascade.model(iterations, influentialNode, rewardForInertia,
+				CascadeResult result = cascade.modelResult(iterations, influentialNode, rewardForInertia,
 						rewardForChange);
-				writeFileCascadeResultsOne(influentialNode, resultMap, inputFileName);
+				writeFileCascadeResultsOne(influentialNode, result, inputFileName);
 			}
 		} else {
-			Map<Integer, Set<Integer>> resultMap = cascade.model(iterations, influentialNodes, rewardForInertia,
+			CascadeResult result = cascade.modelResult(iterations, influentialNodes, rewardForInertia,
 					rewardForChange);
-			writeFileCascadeResultsMany(influentialNodes, resultMap, inputFileName);
+			writeFileCascadeResultsMany(influentialNodes, result, inputFileName);
 		}
 	}
 
@@ -223,11 +277,9 @@ public class InfluencerModelingApp {
 	 * seeded concurrently
 	 * 
 	 * @param influentialNodes --set of seeded nodes where cascade begins
-	 * @param resultMap        --map with key to number of nodes that are active
-	 *                         mapped to a set of those active node numbers added
-	 *                         during each subsequent iteration
+	 * @param result           --nodes that became active in each generation
 	 */
-	private void writeFileCascadeResultsMany(List<Integer> influentialNodes, Map<Integer, Set<Integer>> resultMap,
+	private void writeFileCascadeResultsMany(List<Integer> influentialNodes, CascadeResult result,
 			String inputFileName) {
 		StringBuilder sb = new StringBuilder(influentialNodes.size() * 2);
 		for (int i : influentialNodes) {
@@ -236,32 +288,29 @@ public class InfluencerModelingApp {
 		String nodeNums = sb.toString();
 		String outputFilePath = "data/output/cascadeFromNodes" + nodeNums.substring(0, nodeNums.length() - 1)
 				+ inputFileName + ".csv";
-		printToFile(resultMap, outputFilePath);
+		printToFile(result, outputFilePath);
 	}
 
 	/**
 	 * Helper to runCascadeModel that writes to a file when one node seeded
 	 * 
 	 * @param influentialNode --where cascade begins
-	 * @param resultMap       --map with key to number of nodes that are active
-	 *                        mapped to a set of those active node numbers added
-	 *                        during each subsequent iteration
+	 * @param result          --nodes that became active in each generation
 	 */
-	private void writeFileCascadeResultsOne(int influentialNode, Map<Integer, Set<Integer>> resultMap,
+	private void writeFileCascadeResultsOne(int influentialNode, CascadeResult result,
 			String inputFileName) {
 		String outputFilePath = "data/output/CascadeFromNode" + Integer.toString(influentialNode) + inputFileName
 				+ ".csv";
-		printToFile(resultMap, outputFilePath);
+		printToFile(result, outputFilePath);
 	}
 
 	/**
-	 * @param resultMap      cascade results
+	 * @param result         cascade results
 	 * @param outputFilePath file path to save results
 	 */
-	private void printToFile(Map<Integer, Set<Integer>> resultMap, String outputFilePath) {
-		OutputPrinter outputPrinter = new OutputPrinter();
-		outputPrinter.printOutputNumNodesPerGenerationCascade(outputFilePath, resultMap);
-		outputPrinter.printOutputActiveNodesEachGenerationCascade(outputFilePath, resultMap);
+	private void printToFile(CascadeResult result, String outputFilePath) {
+		OutputPrinter outputPrinter = new OutputPrinter(writer);
+		outputPrinter.printOutputCascadeResult(outputFilePath, result);
 	}
 
 }
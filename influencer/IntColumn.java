@@ -0,0 +1,73 @@
+package influencer;
+
+import java.nio.IntBuffer;
+
+/**
+ * Read only sequence of ints that backs one array of a CsrGraph, so the same
+ * graph code can run on arrays on the heap or on a memory mapped snapshot file.
+ *
+ * @author Hillary
+ */
+interface IntColumn {
+
+	int get(int index);
+
+	int length();
+
+	/**
+	 * @param values -- array to wrap, not copied
+	 */
+	static IntColumn of(int[] values) {
+		return new HeapColumn(values);
+	}
+
+	/**
+	 * @param values -- buffer to wrap, read with absolute gets from 0 to its limit
+	 */
+	static IntColumn of(IntBuffer values) {
+		return new BufferColumn(values);
+	}
+
+	/**
+	 * Column over an int array on the heap
+	 */
+	final class HeapColumn implements IntColumn {
+		private final int[] values;
+
+		private HeapColumn(int[] values) {
+			this.values = values;
+		}
+
+		@Override
+		public int get(int index) {
+			return values[index];
+		}
+
+		@Override
+		public int length() {
+			return values.length;
+		}
+	}
+
+	/**
+	 * Column over an IntBuffer, usually a view of a memory mapped file
+	 */
+	final class BufferColumn implements IntColumn {
+		private final IntBuffer values;
+
+		private BufferColumn(IntBuffer values) {
+			this.values = values;
+		}
+
+		@Override
+		public int get(int index) {
+			return values.get(index);
+		}
+
+		@Override
+		public int length() {
+			return values.limit();
+		}
+	}
+
+}
@@ -0,0 +1,177 @@
+package influencer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Growable int array outside the Java heap, kept in fixed size chunks of
+ * direct buffers or, given a directory, of memory mapped temporary files. The
+ * garbage collector only ever sees the small chunk table, however long the
+ * array gets, and growing adds chunks without copying. Ints are in native
+ * byte order.
+ *
+ * @author Hillary
+ */
+final class NativeIntArray {
+
+	// 2^20 ints, 4 MB, per chunk
+	private static final int CHUNK_SHIFT = 20;
+	private static final int CHUNK_INTS = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_INTS - 1;
+
+	private final Path file;
+	private final FileChannel channel;
+	private IntBuffer[] chunks = new IntBuffer[0];
+	private int length;
+
+	/**
+	 * @param length    -- starting length, all zeros
+	 * @param directory -- where to keep the backing file, null for native memory
+	 */
+	NativeIntArray(int length, String directory) {
+		if (length < 0) {
+			throw new IllegalArgumentException("Length can not be negative.");
+		}
+		if (directory == null) {
+			file = null;
+			channel = null;
+		} else {
+			try {
+				file = Files.createTempFile(Paths.get(directory), "graph", ".ints");
+				file.toFile().deleteOnExit();
+				channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not create a backing file in " + directory + ".", e);
+			}
+		}
+		resize(length);
+	}
+
+	int get(int index) {
+		return chunks[index >>> CHUNK_SHIFT].get(index & CHUNK_MASK);
+	}
+
+	void set(int index, int value) {
+		chunks[index >>> CHUNK_SHIFT].put(index & CHUNK_MASK, value);
+	}
+
+	/**
+	 * @return the value before the increment
+	 */
+	int getAndIncrement(int index) {
+		IntBuffer chunk = chunks[index >>> CHUNK_SHIFT];
+		int value = chunk.get(index & CHUNK_MASK);
+		chunk.put(index & CHUNK_MASK, value + 1);
+		return value;
+	}
+
+	/**
+	 * Adds a value at the end, growing by a chunk when full
+	 */
+	void add(int value) {
+		if (length == Integer.MAX_VALUE) {
+			throw new IllegalStateException("Array is full.");
+		}
+		if (length == (long) chunks.length << CHUNK_SHIFT) {
+			resize(length + 1);
+		} else {
+			length++;
+		}
+		set(length - 1, value);
+	}
+
+	int length() {
+		return length;
+	}
+
+	/**
+	 * The array as one IntBuffer, so a CsrGraph built from it reads the same
+	 * BufferColumn as a reopened snapshot: the whole backing file mapped at
+	 * once, or the chunks copied into one direct buffer. Call close() afterwards
+	 *
+	 * @return read only column of the array as it is now
+	 */
+	IntColumn column() {
+		long bytes = 4L * length;
+		if (bytes > Integer.MAX_VALUE) {
+			throw new IllegalStateException("Array of " + length + " ints is too large for one graph column.");
+		}
+		if (channel != null) {
+			try {
+				ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+				return IntColumn.of(mapped.order(ByteOrder.nativeOrder()).asIntBuffer());
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not map " + file + ".", e);
+			}
+		}
+		IntBuffer ints = ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder()).asIntBuffer();
+		for (int c = 0; c < chunks.length; c++) {
+			IntBuffer chunk = chunks[c].duplicate();
+			chunk.limit(Math.min(CHUNK_INTS, length - (c << CHUNK_SHIFT)));
+			ints.put(chunk);
+		}
+		ints.flip();
+		return IntColumn.of(ints);
+	}
+
+	/**
+	 * Lengthens the array, new entries are zero
+	 */
+	void resize(int newLength) {
+		if (newLength < length) {
+			throw new IllegalArgumentException("Array can only grow.");
+		}
+		int needed = (int) (((long) newLength + CHUNK_INTS - 1) >>> CHUNK_SHIFT);
+		if (needed > chunks.length) {
+			int old = chunks.length;
+			chunks = Arrays.copyOf(chunks, needed);
+			for (int c = old; c < needed; c++) {
+				chunks[c] = newChunk(c);
+			}
+		}
+		length = newLength;
+	}
+
+	/**
+	 * Lets go of the backing file; the memory itself goes when the array is no
+	 * longer reachable
+	 */
+	void close() {
+		chunks = new IntBuffer[0];
+		length = 0;
+		if (channel != null) {
+			try {
+				channel.close();
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				// deleteOnExit removes it later
+			}
+		}
+	}
+
+	// helper to resize that makes the chunk at a position of the array
+	private IntBuffer newChunk(int chunkIndex) {
+		ByteBuffer bytes;
+		if (channel == null) {
+			bytes = ByteBuffer.allocateDirect(4 * CHUNK_INTS);
+		} else {
+			try {
+				bytes = channel.map(FileChannel.MapMode.READ_WRITE, (long) chunkIndex * 4 * CHUNK_INTS,
+						4 * CHUNK_INTS);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not map " + file + ".", e);
+			}
+		}
+		return bytes.order(ByteOrder.nativeOrder()).asIntBuffer();
+	}
+
+}
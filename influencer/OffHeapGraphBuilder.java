@@ -0,0 +1,317 @@
+package influencer;
+
+import java.util.Arrays;
+
+/**
+ * Builds a CsrGraph whose arrays all live outside the Java heap, straight from
+ * a stream of edges, for graphs too large for the node map of Graph. Nothing
+ * per node or per edge is ever made on the heap, so heap use stays about the
+ * same whatever the size of the graph and the garbage collector has nothing
+ * to scan during cascade runs. The result is an ordinary CsrGraph, the same
+ * one Graph.freeze() gives for the same vertices and edges, so traversal,
+ * cascades and snapshots work on it unchanged.
+ *
+ * Without a directory the arrays are direct buffers, which count against
+ * -XX:MaxDirectMemorySize (by default the same as the heap size). With a
+ * directory they are memory mapped temporary files there, which the operating
+ * system pages in and out as needed, so the graph can be larger than memory.
+ *
+ * Building sorts the node numbers with a radix sort, counts the edges into
+ * rows and transposes twice, merging repeated edges into weights, all over
+ * native arrays. Each finished array becomes one buffer, like a section of a
+ * GraphSnapshot, so a graph holds at most 2^29 distinct edges.
+ *
+ * @author Hillary
+ */
+public final class OffHeapGraphBuilder {
+
+	private final String directory;
+	private NativeIntArray from;
+	private NativeIntArray to;
+	// vertices added on their own, which may have no edges
+	private NativeIntArray vertices;
+
+	/**
+	 * Keeps the graph in native memory
+	 */
+	public OffHeapGraphBuilder() {
+		this(null);
+	}
+
+	/**
+	 * @param directory -- where to keep the backing files, null for native
+	 *                  memory
+	 */
+	public OffHeapGraphBuilder(String directory) {
+		this.directory = directory;
+		this.from = new NativeIntArray(0, directory);
+		this.to = new NativeIntArray(0, directory);
+		this.vertices = new NativeIntArray(0, directory);
+	}
+
+	/**
+	 * Adds a vertex, which stays in the graph even if no edge is added to it, as
+	 * Graph.addVertex does. Adding it again changes nothing
+	 *
+	 * @param num -- node number of the vertex
+	 */
+	public void addVertex(int num) {
+		checkNotBuilt();
+		vertices.add(num);
+	}
+
+	/**
+	 * Adds an edge, adding its vertices if they are new. Adding the same edge
+	 * again adds to its weight, as Graph.addEdge does
+	 *
+	 * @param fromNum -- node number of node that was retweeted
+	 * @param toNum   -- node number of node who retweeted the other's post
+	 */
+	public void addEdge(int fromNum, int toNum) {
+		checkNotBuilt();
+		from.add(fromNum);
+		to.add(toNum);
+	}
+
+	/**
+	 * @param fromNums -- node numbers of the nodes that were retweeted
+	 * @param toNums   -- node numbers of the nodes who retweeted, same positions
+	 *                 as fromNums
+	 * @param numEdges -- how many entries of the arrays to add
+	 */
+	public void addEdges(int[] fromNums, int[] toNums, int numEdges) {
+		checkNotBuilt();
+		for (int i = 0; i < numEdges; i++) {
+			from.add(fromNums[i]);
+			to.add(toNums[i]);
+		}
+	}
+
+	/**
+	 * @return edges added so far, repeats included
+	 */
+	public int getNumEdgesAdded() {
+		checkNotBuilt();
+		return from.length();
+	}
+
+	/**
+	 * Builds the graph. The builder can not be used afterwards
+	 *
+	 * @return graph over native arrays
+	 */
+	public CsrGraph build() {
+		checkNotBuilt();
+		int numEdgesAdded = from.length();
+		if (numEdgesAdded > Integer.MAX_VALUE / 2) {
+			throw new IllegalStateException("Too many edges for one graph: " + numEdgesAdded + ".");
+		}
+		NativeIntArray nodeNums = sortedNodeNums(numEdgesAdded);
+		int numNodes = nodeNums.length();
+		// followed rows in the order the edges were added, weight 1 per edge
+		NativeIntArray addedOffsets = newArray(numNodes + 1);
+		for (int e = 0; e < numEdgesAdded; e++) {
+			from.set(e, indexOf(nodeNums, from.get(e)));
+			to.set(e, indexOf(nodeNums, to.get(e)));
+			addedOffsets.getAndIncrement(from.get(e) + 1);
+		}
+		prefixSum(addedOffsets, numNodes);
+		NativeIntArray addedTargets = newArray(numEdgesAdded);
+		NativeIntArray next = newArray(numNodes);
+		copy(addedOffsets, next, numNodes);
+		for (int e = 0; e < numEdgesAdded; e++) {
+			addedTargets.set(next.getAndIncrement(from.get(e)), to.get(e));
+		}
+		from.close();
+		to.close();
+		vertices.close();
+		from = null;
+		to = null;
+		vertices = null;
+		// follower rows come out sorted, with repeats next to each other
+		NativeIntArray[] followerRows = transpose(numNodes, addedOffsets, addedTargets, null, next);
+		addedOffsets.close();
+		addedTargets.close();
+		NativeIntArray[] merged = mergeRepeats(numNodes, followerRows[0], followerRows[1]);
+		followerRows[0].close();
+		followerRows[1].close();
+		NativeIntArray[] followedRows = transpose(numNodes, merged[0], merged[1], merged[2], next);
+		next.close();
+		NativeIntArray timesRetweeted = rowSums(numNodes, merged[0], merged[2]);
+		NativeIntArray retweetsMade = rowSums(numNodes, followedRows[0], followedRows[2]);
+		return new CsrGraph(toColumn(nodeNums), toColumn(merged[0]), toColumn(merged[1]), toColumn(merged[2]),
+				toColumn(followedRows[0]), toColumn(followedRows[1]), toColumn(followedRows[2]),
+				toColumn(timesRetweeted), toColumn(retweetsMade));
+	}
+
+	// helper to build that radix sorts every endpoint and added vertex and keeps
+	// each node number once
+	private NativeIntArray sortedNodeNums(int numEdgesAdded) {
+		int numVertices = vertices.length();
+		if (numVertices > Integer.MAX_VALUE - 2 * numEdgesAdded) {
+			throw new IllegalStateException("Too many vertices for one graph: " + numVertices + ".");
+		}
+		int size = 2 * numEdgesAdded + numVertices;
+		NativeIntArray keys = newArray(size);
+		for (int e = 0; e < numEdgesAdded; e++) {
+			keys.set(2 * e, from.get(e));
+			keys.set(2 * e + 1, to.get(e));
+		}
+		for (int v = 0; v < numVertices; v++) {
+			keys.set(2 * numEdgesAdded + v, vertices.get(v));
+		}
+		NativeIntArray swap = newArray(size);
+		int[] counts = new int[257];
+		for (int shift = 0; shift < 32; shift += 8) {
+			Arrays.fill(counts, 0);
+			for (int i = 0; i < size; i++) {
+				counts[digit(keys.get(i), shift) + 1]++;
+			}
+			for (int d = 0; d < 256; d++) {
+				counts[d + 1] += counts[d];
+			}
+			for (int i = 0; i < size; i++) {
+				int key = keys.get(i);
+				swap.set(counts[digit(key, shift)]++, key);
+			}
+			NativeIntArray sorted = swap;
+			swap = keys;
+			keys = sorted;
+		}
+		swap.close();
+		NativeIntArray nodeNums = newArray(0);
+		for (int i = 0; i < size; i++) {
+			int key = keys.get(i);
+			if (i == 0 || key != keys.get(i - 1)) {
+				nodeNums.add(key);
+			}
+		}
+		keys.close();
+		return nodeNums;
+	}
+
+	// helper to sortedNodeNums with one byte of a key, the sign bit flipped so
+	// negative numbers sort first
+	private static int digit(int key, int shift) {
+		return ((key ^ Integer.MIN_VALUE) >>> shift) & 0xFF;
+	}
+
+	// helper to build that finds the dense index of a node number
+	private static int indexOf(NativeIntArray nodeNums, int nodeNum) {
+		int low = 0;
+		int high = nodeNums.length() - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int midNum = nodeNums.get(mid);
+			if (midNum < nodeNum) {
+				low = mid + 1;
+			} else if (midNum > nodeNum) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		throw new IllegalStateException("Node " + nodeNum + " is missing from the node table.");
+	}
+
+	// helper to build that reverses the direction of every edge, the same way
+	// CsrGraph.fromNodes does. Rows of the result are sorted because source rows
+	// are visited in index order. Null weights count as 1 each
+	private NativeIntArray[] transpose(int numNodes, NativeIntArray offsets, NativeIntArray targets,
+			NativeIntArray weights, NativeIntArray next) {
+		int numEdges = targets.length();
+		NativeIntArray newOffsets = newArray(numNodes + 1);
+		for (int k = 0; k < numEdges; k++) {
+			newOffsets.getAndIncrement(targets.get(k) + 1);
+		}
+		prefixSum(newOffsets, numNodes);
+		copy(newOffsets, next, numNodes);
+		NativeIntArray newTargets = newArray(numEdges);
+		NativeIntArray newWeights = weights == null ? null : newArray(numEdges);
+		for (int i = 0; i < numNodes; i++) {
+			for (int k = offsets.get(i); k < offsets.get(i + 1); k++) {
+				int slot = next.getAndIncrement(targets.get(k));
+				newTargets.set(slot, i);
+				if (weights != null) {
+					newWeights.set(slot, weights.get(k));
+				}
+			}
+		}
+		return new NativeIntArray[] { newOffsets, newTargets, newWeights };
+	}
+
+	// helper to build that turns runs of the same target in sorted rows into one
+	// entry weighted by the length of the run
+	private NativeIntArray[] mergeRepeats(int numNodes, NativeIntArray offsets, NativeIntArray targets) {
+		NativeIntArray newOffsets = newArray(numNodes + 1);
+		NativeIntArray newTargets = newArray(0);
+		NativeIntArray newWeights = newArray(0);
+		for (int i = 0; i < numNodes; i++) {
+			int end = offsets.get(i + 1);
+			for (int k = offsets.get(i); k < end; k++) {
+				int target = targets.get(k);
+				if (k > offsets.get(i) && target == targets.get(k - 1)) {
+					newWeights.getAndIncrement(newWeights.length() - 1);
+				} else {
+					newTargets.add(target);
+					newWeights.add(1);
+				}
+			}
+			newOffsets.set(i + 1, newTargets.length());
+		}
+		return new NativeIntArray[] { newOffsets, newTargets, newWeights };
+	}
+
+	// helper to build that totals the edge weights of each row
+	private NativeIntArray rowSums(int numNodes, NativeIntArray offsets, NativeIntArray weights) {
+		NativeIntArray sums = newArray(numNodes);
+		for (int i = 0; i < numNodes; i++) {
+			int sum = 0;
+			for (int k = offsets.get(i); k < offsets.get(i + 1); k++) {
+				sum += weights.get(k);
+			}
+			sums.set(i, sum);
+		}
+		return sums;
+	}
+
+	// helper that turns counts at 1..numNodes into row offsets
+	private static void prefixSum(NativeIntArray offsets, int numNodes) {
+		for (int i = 0; i < numNodes; i++) {
+			offsets.set(i + 1, offsets.get(i + 1) + offsets.get(i));
+		}
+	}
+
+	// helper that copies the first length entries of one array to another
+	private static void copy(NativeIntArray source, NativeIntArray target, int length) {
+		for (int i = 0; i < length; i++) {
+			target.set(i, source.get(i));
+		}
+	}
+
+	// helper to build that hands a finished array over to the graph
+	private static IntColumn toColumn(NativeIntArray array) {
+		IntColumn column = array.column();
+		array.close();
+		return column;
+	}
+
+	// helper that makes an array in this builder's storage
+	private NativeIntArray newArray(int length) {
+		return new NativeIntArray(length, directory);
+	}
+
+	// helper that rejects use after build
+	private void checkNotBuilt() {
+		if (from == null) {
+			throw new IllegalStateException("Graph was already built.");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Off heap graph builder in " + (directory == null ? "native memory" : directory)
+				+ (from == null ? ", built" : " with " + from.length() + " edges");
+	}
+
+}
@@ -0,0 +1,186 @@
+package influencer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Weighted PageRank over the retweet edges. A node passes its rank to the
+ * nodes it retweeted in proportion to how often it retweeted each, so being
+ * retweeted by influential nodes counts for more than being retweeted often
+ * by nodes nobody retweets. Nodes that retweeted no one spread their rank over
+ * every node.
+ *
+ * Each iteration pulls: every node sums the rank of its followers times their
+ * edge shares, reading the follower rows of the CsrGraph and writing its own
+ * entry of a float vector, so node ranges run on the fork join pool without
+ * any locking. Iterations stop once the L1 change of the ranks drops below
+ * the tolerance or after the iteration cap. Ranges and their partial sums are
+ * fixed, so the scores are the same on any number of threads.
+ *
+ * @author Hillary
+ */
+public final class PageRankScorer implements InfluenceScorer {
+
+	public static final float DEFAULT_DAMPING = 0.85f;
+	public static final double DEFAULT_TOLERANCE = 1e-6;
+	public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+	// nodes updated by one fork join task
+	private static final int NODES_PER_TASK = 8192;
+
+	private final float damping;
+	private final double tolerance;
+	private final int maxIterations;
+	private final ForkJoinPool pool;
+	private int iterations;
+	private double residual;
+
+	public PageRankScorer() {
+		this(DEFAULT_DAMPING, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param damping       -- chance of following an edge rather than jumping to
+	 *                      a random node, between 0 and 1
+	 * @param tolerance     -- L1 change of the ranks at which to stop
+	 * @param maxIterations -- most iterations to run
+	 * @param pool          -- threads for the iterations, null to run them on
+	 *                      the calling thread
+	 */
+	public PageRankScorer(float damping, double tolerance, int maxIterations, ForkJoinPool pool) {
+		if (!(damping >= 0 && damping < 1)) {
+			throw new IllegalArgumentException("Damping must be at least 0 and less than 1.");
+		}
+		if (!(tolerance >= 0) || maxIterations <= 0) {
+			throw new IllegalArgumentException("Tolerance can not be negative and iterations must be positive.");
+		}
+		this.damping = damping;
+		this.tolerance = tolerance;
+		this.maxIterations = maxIterations;
+		this.pool = pool;
+	}
+
+	/**
+	 * @return PageRank of every dense index, summing to 1
+	 */
+	@Override
+	public float[] score(CsrGraph graph) {
+		int numNodes = graph.getNumNodes();
+		if (numNodes == 0) {
+			return new float[0];
+		}
+		float[] shares = graph.followerShares();
+		List<RankRange> ranges = new ArrayList<RankRange>();
+		for (int start = 0; start < numNodes; start += NODES_PER_TASK) {
+			ranges.add(new RankRange(graph, shares, start, Math.min(numNodes, start + NODES_PER_TASK)));
+		}
+		float[] rank = new float[numNodes];
+		float[] next = new float[numNodes];
+		Arrays.fill(rank, 1f / numNodes);
+		double dangling = danglingRank(graph, rank, 0, numNodes);
+		iterations = 0;
+		residual = Double.POSITIVE_INFINITY;
+		while (iterations < maxIterations && residual > tolerance) {
+			float base = (float) ((1 - damping + damping * dangling) / numNodes);
+			for (RankRange range : ranges) {
+				range.prepare(rank, next, base);
+			}
+			ChunkRunner.run(pool, ranges);
+			residual = 0;
+			dangling = 0;
+			for (RankRange range : ranges) {
+				residual += range.change;
+				dangling += range.dangling;
+			}
+			float[] swap = rank;
+			rank = next;
+			next = swap;
+			iterations++;
+		}
+		return rank;
+	}
+
+	/**
+	 * @return iterations run by the last score call
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * @return L1 change of the ranks in the last iteration of the last score call
+	 */
+	public double getResidual() {
+		return residual;
+	}
+
+	// helper that sums the rank of the nodes in a range that retweeted no one
+	private static double danglingRank(CsrGraph graph, float[] rank, int start, int end) {
+		double sum = 0;
+		for (int i = start; i < end; i++) {
+			if (graph.getTotalRetweetsMade(i) == 0) {
+				sum += rank[i];
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * One iteration over a fixed range of dense indices, keeping the range's
+	 * part of the L1 change and of the dangling rank for the next iteration
+	 */
+	private final class RankRange extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final CsrGraph graph;
+		private final float[] shares;
+		private final int start;
+		private final int end;
+		private float[] rank;
+		private float[] next;
+		private float base;
+		private double change;
+		private double dangling;
+
+		private RankRange(CsrGraph graph, float[] shares, int start, int end) {
+			this.graph = graph;
+			this.shares = shares;
+			this.start = start;
+			this.end = end;
+		}
+
+		// helper that sets up the range for the next iteration, as a fork join
+		// task can only run again once reinitialized
+		private void prepare(float[] rank, float[] next, float base) {
+			reinitialize();
+			this.rank = rank;
+			this.next = next;
+			this.base = base;
+		}
+
+		@Override
+		protected void compute() {
+			double change = 0;
+			for (int i = start; i < end; i++) {
+				float sum = 0;
+				for (int k = graph.followerStart(i); k < graph.followerEnd(i); k++) {
+					sum += shares[k] * rank[graph.followerAt(k)];
+				}
+				float value = base + damping * sum;
+				next[i] = value;
+				change += Math.abs(value - rank[i]);
+			}
+			this.change = change;
+			this.dangling = danglingRank(graph, next, start, end);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "PageRank scorer with damping " + damping + ", tolerance " + tolerance + " and at most "
+				+ maxIterations + " iterations";
+	}
+
+}
@@ -0,0 +1,348 @@
+package influencer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Reach of one influential node: every node that can be reached over follower
+ * edges, how many nodes sit at each depth and the visited set as a bitmap over
+ * dense indices.
+ *
+ * Computed with a direction optimizing breadth first search. While the frontier
+ * is small each frontier node pushes to its followers (top down). Once the
+ * edges out of the frontier outweigh a fraction of the work a bottom up level
+ * would do (the unreached nodes plus the edges they follow), it switches to
+ * bottom up: every node not reached yet scans the nodes it follows and stops
+ * at the first one in the frontier, which skips most edges of high degree
+ * hubs. It switches back when the frontier shrinks again. Bottom up steps
+ * split the nodes into word aligned ranges of the bitmaps, so they run on a
+ * fork join pool without any atomics.
+ *
+ * @author Hillary
+ */
+public class ReachAnalysis {
+
+	// switch to bottom up when frontier edges > bottom up work / ALPHA. Lower
+	// than the usual 14 because most nodes of a retweet graph are never reached
+	// and a bottom up level still has to scan all of them
+	private static final int ALPHA = 4;
+	// switch back to top down when frontier nodes < all nodes / BETA
+	private static final int BETA = 24;
+	// bitmap words handed to one fork join task, 4096 nodes
+	private static final int WORDS_PER_TASK = 64;
+
+	private final CsrGraph graph;
+	private final int rootIndex;
+	private final long[] visited;
+	private final int[] depthHistogram;
+	private final int reach;
+	private final int bottomUpSteps;
+
+	private ReachAnalysis(CsrGraph graph, int rootIndex, long[] visited, int[] depthHistogram, int reach,
+			int bottomUpSteps) {
+		this.graph = graph;
+		this.rootIndex = rootIndex;
+		this.visited = visited;
+		this.depthHistogram = depthHistogram;
+		this.reach = reach;
+		this.bottomUpSteps = bottomUpSteps;
+	}
+
+	/**
+	 * @param graph   -- frozen graph to search
+	 * @param nodeNum -- influential node to start from
+	 * @param pool    -- threads for the bottom up steps, null to run them on the
+	 *                calling thread
+	 * @return reach of the node
+	 */
+	public static ReachAnalysis of(CsrGraph graph, int nodeNum, ForkJoinPool pool) {
+		int rootIndex = graph.indexOf(nodeNum);
+		if (rootIndex < 0) {
+			throw new IllegalArgumentException("Node " + nodeNum + " is not in the graph.");
+		}
+		return new Search(graph, pool).run(rootIndex);
+	}
+
+	/**
+	 * @return number of nodes reached, not counting the influencer
+	 */
+	public int getReach() {
+		return reach;
+	}
+
+	/**
+	 * @return entry d is how many nodes are d edges from the influencer, entry 0
+	 *         being the influencer itself
+	 */
+	public int[] getDepthHistogram() {
+		return Arrays.copyOf(depthHistogram, depthHistogram.length);
+	}
+
+	/**
+	 * @return depth of the farthest reached node
+	 */
+	public int getMaxDepth() {
+		return depthHistogram.length - 1;
+	}
+
+	/**
+	 * @param nodeNum -- node to check
+	 * @return whether the node can be reached from the influencer
+	 */
+	public boolean isReached(int nodeNum) {
+		int index = graph.indexOf(nodeNum);
+		return index >= 0 && (visited[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * @return node numbers of every reached node, including the influencer, in
+	 *         ascending order
+	 */
+	public int[] getReachedNodeNums() {
+		int[] nodeNums = new int[reach + 1];
+		int n = 0;
+		for (int word = 0; word < visited.length; word++) {
+			long bits = visited[word];
+			while (bits != 0) {
+				nodeNums[n++] = graph.getNodeNum((word << 6) + Long.numberOfTrailingZeros(bits));
+				bits &= bits - 1;
+			}
+		}
+		return nodeNums;
+	}
+
+	/**
+	 * @return the visited bitmap over dense indices, not copied
+	 */
+	long[] visitedBits() {
+		return visited;
+	}
+
+	/**
+	 * @return how many levels were expanded bottom up
+	 */
+	public int getBottomUpSteps() {
+		return bottomUpSteps;
+	}
+
+	public int getInfluentialNodeNum() {
+		return graph.getNodeNum(rootIndex);
+	}
+
+	@Override
+	public String toString() {
+		return "Reach of " + getInfluentialNodeNum() + ": " + reach + " nodes in " + getMaxDepth() + " levels ("
+				+ bottomUpSteps + " bottom up)";
+	}
+
+	/**
+	 * State of one search. The frontier is an int queue while going top down and
+	 * a bitmap while going bottom up
+	 */
+	private static final class Search {
+		private final CsrGraph graph;
+		private final ForkJoinPool pool;
+		private final int numNodes;
+		private final long[] visited;
+		private long[] frontierBits;
+		private long[] nextBits;
+		private int[] queue;
+		private int[] nextQueue;
+		private int[] histogram = new int[16];
+		private int levels;
+		// made on the first bottom up step and reused by the later ones
+		private List<BottomUpRange> ranges;
+
+		private Search(CsrGraph graph, ForkJoinPool pool) {
+			this.graph = graph;
+			this.pool = pool;
+			this.numNodes = graph.getNumNodes();
+			int words = (numNodes + 63) >>> 6;
+			visited = new long[words];
+			frontierBits = new long[words];
+			nextBits = new long[words];
+			queue = new int[numNodes];
+			nextQueue = new int[numNodes];
+		}
+
+		private ReachAnalysis run(int rootIndex) {
+			visited[rootIndex >>> 6] |= 1L << rootIndex;
+			queue[0] = rootIndex;
+			int frontierSize = 1;
+			long frontierEdges = degree(rootIndex);
+			long bottomUpWork = (numNodes - 1) + graph.getNumEdges() - followedDegree(rootIndex);
+			boolean bottomUp = false;
+			int bottomUpSteps = 0;
+			int reached = 0;
+			addLevel(1);
+			while (frontierSize > 0) {
+				if (!bottomUp && frontierEdges > bottomUpWork / ALPHA) {
+					bottomUp = true;
+					queueToBits(frontierSize);
+				} else if (bottomUp && frontierSize < numNodes / BETA) {
+					bottomUp = false;
+					frontierSize = bitsToQueue();
+				}
+				long[] step;
+				if (bottomUp) {
+					step = bottomUpStep();
+					long[] swap = frontierBits;
+					frontierBits = nextBits;
+					nextBits = swap;
+					Arrays.fill(nextBits, 0L);
+					bottomUpSteps++;
+				} else {
+					step = topDownStep(frontierSize);
+					int[] swap = queue;
+					queue = nextQueue;
+					nextQueue = swap;
+				}
+				frontierSize = (int) step[0];
+				frontierEdges = step[1];
+				bottomUpWork -= step[0] + step[2];
+				if (frontierSize > 0) {
+					addLevel(frontierSize);
+					reached += frontierSize;
+				}
+			}
+			return new ReachAnalysis(graph, rootIndex, visited, Arrays.copyOf(histogram, levels), reached,
+					bottomUpSteps);
+		}
+
+		// expands the queue into nextQueue, returns {nodes added, their follower
+		// edges, their followed edges}
+		private long[] topDownStep(int frontierSize) {
+			int nextSize = 0;
+			long nextEdges = 0;
+			long nextFollowedEdges = 0;
+			for (int i = 0; i < frontierSize; i++) {
+				int curr = queue[i];
+				for (int k = graph.followerStart(curr); k < graph.followerEnd(curr); k++) {
+					int follower = graph.followerAt(k);
+					long bit = 1L << follower;
+					if ((visited[follower >>> 6] & bit) == 0) {
+						visited[follower >>> 6] |= bit;
+						nextQueue[nextSize++] = follower;
+						nextEdges += degree(follower);
+						nextFollowedEdges += followedDegree(follower);
+					}
+				}
+			}
+			return new long[] { nextSize, nextEdges, nextFollowedEdges };
+		}
+
+		// expands frontierBits into nextBits, returns the same as topDownStep
+		private long[] bottomUpStep() {
+			if (ranges == null) {
+				ranges = new ArrayList<BottomUpRange>();
+				for (int start = 0; start < visited.length; start += WORDS_PER_TASK) {
+					ranges.add(new BottomUpRange(this, start, Math.min(visited.length, start + WORDS_PER_TASK)));
+				}
+			}
+			for (BottomUpRange range : ranges) {
+				range.prepare();
+			}
+			ChunkRunner.run(pool, ranges);
+			long[] step = new long[3];
+			for (BottomUpRange range : ranges) {
+				step[0] += range.added;
+				step[1] += range.addedEdges;
+				step[2] += range.addedFollowedEdges;
+			}
+			return step;
+		}
+
+		private void queueToBits(int frontierSize) {
+			Arrays.fill(frontierBits, 0L);
+			for (int i = 0; i < frontierSize; i++) {
+				frontierBits[queue[i] >>> 6] |= 1L << queue[i];
+			}
+		}
+
+		private int bitsToQueue() {
+			int size = 0;
+			for (int word = 0; word < frontierBits.length; word++) {
+				long bits = frontierBits[word];
+				while (bits != 0) {
+					queue[size++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+					bits &= bits - 1;
+				}
+			}
+			return size;
+		}
+
+		private long degree(int index) {
+			return graph.followerEnd(index) - graph.followerStart(index);
+		}
+
+		private long followedDegree(int index) {
+			return graph.followedEnd(index) - graph.followedStart(index);
+		}
+
+		private void addLevel(int size) {
+			if (levels == histogram.length) {
+				histogram = Arrays.copyOf(histogram, levels * 2);
+			}
+			histogram[levels++] = size;
+		}
+	}
+
+	/**
+	 * Bottom up step over a fixed range of bitmap words. Each range owns whole
+	 * words of visited and nextBits, so ranges never write the same word
+	 */
+	private static final class BottomUpRange extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Search search;
+		private final int fromWord;
+		private final int toWord;
+		private long added;
+		private long addedEdges;
+		private long addedFollowedEdges;
+
+		private BottomUpRange(Search search, int fromWord, int toWord) {
+			this.search = search;
+			this.fromWord = fromWord;
+			this.toWord = toWord;
+		}
+
+		// helper that sets up the range for the next step, as a fork join task
+		// can only run again once reinitialized
+		private void prepare() {
+			reinitialize();
+			added = 0;
+			addedEdges = 0;
+			addedFollowedEdges = 0;
+		}
+
+		@Override
+		protected void compute() {
+			CsrGraph graph = search.graph;
+			long[] visited = search.visited;
+			long[] frontierBits = search.frontierBits;
+			long[] nextBits = search.nextBits;
+			int end = Math.min(search.numNodes, toWord << 6);
+			for (int node = fromWord << 6; node < end; node++) {
+				long bit = 1L << node;
+				if ((visited[node >>> 6] & bit) != 0) {
+					continue;
+				}
+				for (int k = graph.followedStart(node); k < graph.followedEnd(node); k++) {
+					int followed = graph.followedAt(k);
+					if ((frontierBits[followed >>> 6] & (1L << followed)) != 0) {
+						visited[node >>> 6] |= bit;
+						nextBits[node >>> 6] |= bit;
+						added++;
+						addedEdges += search.degree(node);
+						addedFollowedEdges += search.followedDegree(node);
+						break;
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,489 @@
+package influencer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Reverse reachable (RR) set index for influence maximization under the
+ * stochastic models of DiffusionSimulator. Each RR set is sampled by picking a
+ * node uniformly at random and walking backwards along the nodes it follows:
+ * under INDEPENDENT_CASCADE each followed edge is kept with the influence share
+ * of that edge, under LINEAR_THRESHOLD each node keeps exactly one followed
+ * edge, picked by share. A seed set's expected spread is the number of nodes
+ * times the fraction of RR sets it touches, so choosing k seeds is a max
+ * coverage problem over the sets and needs no cascades at all.
+ *
+ * The sets are kept in two int arrays, offsets and members, plus the inverted
+ * arrays from each node to the sets that contain it. Sampling runs on a fork
+ * join pool in fixed size chunks, each with its own SplittableRandom split from
+ * the seed in chunk order, so the same seed gives the same index on any number
+ * of threads.
+ *
+ * The binary form is little endian:
+ *
+ * <pre>
+ * header:  magic, version, model, numNodes, numSets, numMembers
+ * offsets: setStarts[numSets + 1]
+ * members: node numbers of every set, set after set[numMembers]
+ * </pre>
+ *
+ * @author Hillary
+ */
+public final class ReverseReachIndex {
+
+	/**
+	 * One chosen seed
+	 */
+	public static final class Seed {
+		private final int nodeNum;
+		private final double marginalGain;
+		private final double spread;
+
+		private Seed(int nodeNum, double marginalGain, double spread) {
+			this.nodeNum = nodeNum;
+			this.marginalGain = marginalGain;
+			this.spread = spread;
+		}
+
+		public int getNodeNum() {
+			return nodeNum;
+		}
+
+		/**
+		 * @return estimated increase in expected spread from adding this seed
+		 */
+		public double getMarginalGain() {
+			return marginalGain;
+		}
+
+		/**
+		 * @return estimated expected spread of this and all earlier seeds
+		 */
+		public double getSpread() {
+			return spread;
+		}
+
+		@Override
+		public String toString() {
+			return nodeNum + " (+" + marginalGain + ", spread " + spread + ")";
+		}
+	}
+
+	private static final int MAGIC = 0x52524958;
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 24;
+	private static final int BUFFER_BYTES = 1 << 16;
+	// RR sets sampled by one fork join task, with one random generator
+	private static final int SETS_PER_TASK = 1024;
+
+	private final CsrGraph graph;
+	private final DiffusionSimulator.Model model;
+	private final int numSets;
+	private final int[] setStarts;
+	private final int[] members;
+	// sets containing each node: setsOf[nodeStarts[i]..nodeStarts[i + 1])
+	private final int[] nodeStarts;
+	private final int[] setsOf;
+
+	// helper to build and load that adds the inverted arrays
+	private ReverseReachIndex(CsrGraph graph, DiffusionSimulator.Model model, int[] setStarts, int[] members) {
+		this.graph = graph;
+		this.model = model;
+		this.numSets = setStarts.length - 1;
+		this.setStarts = setStarts;
+		this.members = members;
+		int numNodes = graph.getNumNodes();
+		this.nodeStarts = new int[numNodes + 1];
+		for (int i = 0; i < members.length; i++) {
+			nodeStarts[members[i] + 1]++;
+		}
+		for (int i = 0; i < numNodes; i++) {
+			nodeStarts[i + 1] += nodeStarts[i];
+		}
+		this.setsOf = new int[members.length];
+		int[] next = Arrays.copyOf(nodeStarts, numNodes);
+		for (int set = 0; set < numSets; set++) {
+			for (int i = setStarts[set]; i < setStarts[set + 1]; i++) {
+				setsOf[next[members[i]]++] = set;
+			}
+		}
+	}
+
+	/**
+	 * Samples the index on the common pool
+	 *
+	 * @param graph   -- frozen graph to sample
+	 * @param model   -- diffusion model the seeds are chosen for
+	 * @param numSets -- RR sets to sample; more sets give better estimates
+	 * @param seed    -- random seed; the same seed gives the same index
+	 * @return the index
+	 */
+	public static ReverseReachIndex build(CsrGraph graph, DiffusionSimulator.Model model, int numSets, long seed) {
+		return build(graph, model, numSets, seed, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param graph   -- frozen graph to sample
+	 * @param model   -- diffusion model the seeds are chosen for
+	 * @param numSets -- RR sets to sample; more sets give better estimates
+	 * @param seed    -- random seed; the same seed gives the same index
+	 * @param pool    -- threads for the sampling, null to sample on the calling
+	 *                thread
+	 * @return the index
+	 */
+	public static ReverseReachIndex build(CsrGraph graph, DiffusionSimulator.Model model, int numSets, long seed,
+			ForkJoinPool pool) {
+		if (numSets <= 0) {
+			throw new IllegalArgumentException("Number of sets must be a positive integer.");
+		}
+		if (graph.getNumNodes() == 0) {
+			throw new IllegalArgumentException("Graph has no nodes to sample.");
+		}
+		float[] shares = graph.followedShares();
+		ScratchPool<Scratch> scratch = new ScratchPool<Scratch>(() -> new Scratch(graph.getNumNodes()));
+		SplittableRandom root = new SplittableRandom(seed);
+		List<SampleChunk> chunks = new ArrayList<SampleChunk>();
+		for (int start = 0; start < numSets; start += SETS_PER_TASK) {
+			chunks.add(new SampleChunk(graph, model, shares, scratch, Math.min(SETS_PER_TASK, numSets - start),
+					root.split()));
+		}
+		ChunkRunner.run(pool, chunks);
+		long totalMembers = 0;
+		for (SampleChunk chunk : chunks) {
+			totalMembers += chunk.numMembers;
+		}
+		if (totalMembers > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Too many sets for one index: " + totalMembers + " members.");
+		}
+		int[] setStarts = new int[numSets + 1];
+		int[] members = new int[(int) totalMembers];
+		int set = 0;
+		int offset = 0;
+		for (SampleChunk chunk : chunks) {
+			for (int s = 0; s < chunk.sets; s++) {
+				setStarts[set++] = offset + chunk.setStarts[s];
+			}
+			System.arraycopy(chunk.members, 0, members, offset, chunk.numMembers);
+			offset += chunk.numMembers;
+		}
+		setStarts[numSets] = offset;
+		return new ReverseReachIndex(graph, model, setStarts, members);
+	}
+
+	/**
+	 * Greedy max coverage over the RR sets, which is within 1 - 1/e of the best
+	 * coverage for the sampled sets
+	 *
+	 * @param howMany -- seed budget
+	 * @return seeds in the order chosen, with their estimated marginal gains
+	 */
+	public List<Seed> selectSeeds(int howMany) {
+		if (howMany <= 0 || howMany > graph.getNumNodes()) {
+			throw new IllegalArgumentException("Number of seeds must be between 1 and the number of nodes.");
+		}
+		int numNodes = graph.getNumNodes();
+		int[] coverage = new int[numNodes];
+		for (int i = 0; i < numNodes; i++) {
+			coverage[i] = nodeStarts[i + 1] - nodeStarts[i];
+		}
+		boolean[] covered = new boolean[numSets];
+		double scale = (double) numNodes / numSets;
+		List<Seed> seeds = new ArrayList<Seed>(howMany);
+		long totalCovered = 0;
+		for (int round = 0; round < howMany; round++) {
+			// dense indices follow node number, so the first maximum is the lowest
+			int best = 0;
+			for (int i = 1; i < numNodes; i++) {
+				if (coverage[i] > coverage[best]) {
+					best = i;
+				}
+			}
+			int gain = coverage[best];
+			for (int k = nodeStarts[best]; k < nodeStarts[best + 1]; k++) {
+				int set = setsOf[k];
+				if (!covered[set]) {
+					covered[set] = true;
+					for (int m = setStarts[set]; m < setStarts[set + 1]; m++) {
+						coverage[members[m]]--;
+					}
+				}
+			}
+			coverage[best] = -1;
+			totalCovered += gain;
+			seeds.add(new Seed(graph.getNodeNum(best), gain * scale, totalCovered * scale));
+		}
+		return seeds;
+	}
+
+	/**
+	 * @param influentialNodes -- seed node numbers
+	 * @return estimated expected spread of the seeds: the number of nodes times
+	 *         the fraction of RR sets that contain a seed
+	 */
+	public double estimateSpread(List<Integer> influentialNodes) {
+		boolean[] covered = new boolean[numSets];
+		int numCovered = 0;
+		for (int nodeNum : influentialNodes) {
+			int index = graph.indexOf(nodeNum);
+			if (index < 0) {
+				throw new IllegalArgumentException("Influential node " + nodeNum + " is not in the graph.");
+			}
+			for (int k = nodeStarts[index]; k < nodeStarts[index + 1]; k++) {
+				if (!covered[setsOf[k]]) {
+					covered[setsOf[k]] = true;
+					numCovered++;
+				}
+			}
+		}
+		return (double) graph.getNumNodes() * numCovered / numSets;
+	}
+
+	public DiffusionSimulator.Model getModel() {
+		return model;
+	}
+
+	public int getNumSets() {
+		return numSets;
+	}
+
+	/**
+	 * @return total size of all RR sets
+	 */
+	public int getNumMembers() {
+		return members.length;
+	}
+
+	/**
+	 * Writes the index in the binary form, replacing the file if it exists
+	 *
+	 * @param filename -- where to write
+	 * @throws IOException if the file can not be written
+	 */
+	public void save(String filename) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(model.ordinal()).putInt(graph.getNumNodes())
+					.putInt(numSets).putInt(members.length);
+			writeInts(channel, buffer, setStarts, false);
+			writeInts(channel, buffer, members, true);
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	// helper to save that writes values through the buffer, as node numbers if
+	// they are dense indices
+	private void writeInts(FileChannel channel, ByteBuffer buffer, int[] values, boolean nodeNums)
+			throws IOException {
+		for (int value : values) {
+			if (buffer.remaining() < 4) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				buffer.clear();
+			}
+			buffer.putInt(nodeNums ? graph.getNodeNum(value) : value);
+		}
+	}
+
+	/**
+	 * Reads an index written by save
+	 *
+	 * @param filename -- file to read
+	 * @param graph    -- graph the index was sampled from
+	 * @return the index
+	 * @throws IOException if the file can not be read or is not an index of this
+	 *                     graph
+	 */
+	public static ReverseReachIndex load(String filename, CsrGraph graph) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			IntBuffer header = readInts(channel, HEADER_BYTES / 4);
+			if (header.get() != MAGIC || header.get() != VERSION) {
+				throw new IOException(filename + " is not a reverse reach index file.");
+			}
+			int modelOrdinal = header.get();
+			int numNodes = header.get();
+			int numSets = header.get();
+			int numMembers = header.get();
+			if (modelOrdinal < 0 || modelOrdinal >= DiffusionSimulator.Model.values().length || numSets <= 0
+					|| numMembers < 0
+					|| channel.size() != HEADER_BYTES + 4L * (numSets + 1L + numMembers)) {
+				throw new IOException(filename + " is truncated or damaged.");
+			}
+			if (numNodes != graph.getNumNodes()) {
+				throw new IOException(filename + " was built from a graph of " + numNodes + " nodes, not "
+						+ graph.getNumNodes() + ".");
+			}
+			int[] setStarts = new int[numSets + 1];
+			readInts(channel, numSets + 1).get(setStarts);
+			int[] members = new int[numMembers];
+			readInts(channel, numMembers).get(members);
+			for (int s = 0; s < numSets; s++) {
+				if (setStarts[s] < 0 || setStarts[s] > setStarts[s + 1]) {
+					throw new IOException(filename + " is truncated or damaged.");
+				}
+			}
+			if (setStarts[0] != 0 || setStarts[numSets] != numMembers) {
+				throw new IOException(filename + " is truncated or damaged.");
+			}
+			for (int i = 0; i < numMembers; i++) {
+				int index = graph.indexOf(members[i]);
+				if (index < 0) {
+					throw new IOException("Node " + members[i] + " of " + filename + " is not in the graph.");
+				}
+				members[i] = index;
+			}
+			return new ReverseReachIndex(graph, DiffusionSimulator.Model.values()[modelOrdinal], setStarts,
+					members);
+		}
+	}
+
+	// helper to load that reads the next count ints of the file
+	private static IntBuffer readInts(FileChannel channel, int count) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(4 * count).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new IOException("Unexpected end of file.");
+			}
+		}
+		buffer.flip();
+		return buffer.asIntBuffer();
+	}
+
+	/**
+	 * A fixed number of RR sets with their own random generator, laid out the
+	 * same way as the index
+	 */
+	private static final class SampleChunk extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final CsrGraph graph;
+		private final DiffusionSimulator.Model model;
+		private final float[] shares;
+		private final ScratchPool<Scratch> scratch;
+		private final int sets;
+		private final SplittableRandom random;
+		private final int[] setStarts;
+		private int[] members = new int[1024];
+		private int numMembers;
+
+		private SampleChunk(CsrGraph graph, DiffusionSimulator.Model model, float[] shares,
+				ScratchPool<Scratch> scratch, int sets, SplittableRandom random) {
+			this.graph = graph;
+			this.model = model;
+			this.shares = shares;
+			this.scratch = scratch;
+			this.sets = sets;
+			this.random = random;
+			this.setStarts = new int[sets];
+		}
+
+		@Override
+		protected void compute() {
+			Scratch s = scratch.take();
+			for (int set = 0; set < sets; set++) {
+				setStarts[set] = numMembers;
+				int stamp = s.nextStamp();
+				int root = random.nextInt(graph.getNumNodes());
+				s.visited[root] = stamp;
+				add(root);
+				if (model == DiffusionSimulator.Model.INDEPENDENT_CASCADE) {
+					sampleIndependentCascade(s, stamp, setStarts[set]);
+				} else {
+					sampleLinearThreshold(s, stamp, root);
+				}
+			}
+			scratch.giveBack(s);
+		}
+
+		// helper to compute: breadth first search backwards from the root, keeping
+		// each followed edge with its share. The set itself is the queue
+		private void sampleIndependentCascade(Scratch s, int stamp, int start) {
+			for (int q = start; q < numMembers; q++) {
+				int node = members[q];
+				for (int k = graph.followedStart(node); k < graph.followedEnd(node); k++) {
+					int followed = graph.followedAt(k);
+					if (s.visited[followed] != stamp && random.nextDouble() < shares[k]) {
+						s.visited[followed] = stamp;
+						add(followed);
+					}
+				}
+			}
+		}
+
+		// helper to compute: walks back from the root along one followed edge per
+		// node, picked by share, until it reaches a node already in the set or a
+		// node that follows no one
+		private void sampleLinearThreshold(Scratch s, int stamp, int node) {
+			while (true) {
+				int end = graph.followedEnd(node);
+				int k = graph.followedStart(node);
+				if (k == end) {
+					return;
+				}
+				double threshold = random.nextDouble();
+				double sum = shares[k];
+				while (sum <= threshold && k < end - 1) {
+					sum += shares[++k];
+				}
+				int followed = graph.followedAt(k);
+				if (s.visited[followed] == stamp) {
+					return;
+				}
+				s.visited[followed] = stamp;
+				add(followed);
+				node = followed;
+			}
+		}
+
+		// helper that appends a node to the current set
+		private void add(int node) {
+			if (numMembers == members.length) {
+				members = Arrays.copyOf(members, numMembers * 2);
+			}
+			members[numMembers++] = node;
+		}
+	}
+
+	/**
+	 * Visited stamps of one chunk's samples, indexed by dense node index. Each
+	 * set takes a new stamp, so the array never has to be cleared
+	 */
+	private static final class Scratch {
+		private final int[] visited;
+		private int stamp;
+
+		private Scratch(int numNodes) {
+			visited = new int[numNodes];
+		}
+
+		private int nextStamp() {
+			if (stamp == Integer.MAX_VALUE) {
+				Arrays.fill(visited, 0);
+				stamp = 0;
+			}
+			return ++stamp;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Reverse reach index (" + model + ") of " + numSets + " sets, " + members.length + " members, on "
+				+ graph;
+	}
+
+}
@@ -0,0 +1,39 @@
+package influencer;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Working arrays shared by the chunks of one parallel run. A chunk takes a
+ * scratch when it starts and gives it back when it is done, so no more are
+ * made than chunks run at once, and they are garbage as soon as the run drops
+ * the pool instead of staying attached to the pool threads
+ *
+ * @author Hillary
+ */
+final class ScratchPool<T> {
+	private final Supplier<T> factory;
+	private final ConcurrentLinkedQueue<T> free = new ConcurrentLinkedQueue<T>();
+
+	/**
+	 * @param factory -- makes a new scratch when none is free
+	 */
+	ScratchPool(Supplier<T> factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * @return a free scratch, or a new one if every scratch is in use
+	 */
+	T take() {
+		T scratch = free.poll();
+		return scratch != null ? scratch : factory.get();
+	}
+
+	/**
+	 * @param scratch -- scratch taken from this pool that is no longer in use
+	 */
+	void giveBack(T scratch) {
+		free.offer(scratch);
+	}
+}
@@ -0,0 +1,169 @@
+package influencer;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Result of one breadth first search from an influential node over its
+ * followers. Every reached node keeps the dense index of its parent and its
+ * depth, so the shortest path from any node back to the influencer is read off
+ * in O(depth) without searching again.
+ *
+ * @author Hillary
+ */
+public class ShortestPathTree {
+
+	/**
+	 * Receives the paths of forEachPath. path holds the node numbers from the
+	 * reached node to the influencer in its first length entries, and is reused
+	 * for the next call
+	 */
+	public interface PathVisitor {
+		void visit(int nodeNum, int[] path, int length);
+	}
+
+	private final CsrGraph graph;
+	private final int rootIndex;
+	private final int[] parents;
+	private final int[] depths;
+	private final int[] order;
+	private final int numReached;
+
+	private ShortestPathTree(CsrGraph graph, int rootIndex, int[] parents, int[] depths, int[] order,
+			int numReached) {
+		this.graph = graph;
+		this.rootIndex = rootIndex;
+		this.parents = parents;
+		this.depths = depths;
+		this.order = order;
+		this.numReached = numReached;
+	}
+
+	/**
+	 * Runs the breadth first search
+	 *
+	 * @param graph     -- frozen graph to search
+	 * @param rootIndex -- dense index of the influential node
+	 * @return tree of every node that can be reached from the root
+	 */
+	static ShortestPathTree build(CsrGraph graph, int rootIndex) {
+		int[] parents = new int[graph.getNumNodes()];
+		int[] depths = new int[graph.getNumNodes()];
+		Arrays.fill(parents, -1);
+		Arrays.fill(depths, -1);
+		int[] toExplore = new int[graph.getNumNodes()];
+		int head = 0;
+		int tail = 0;
+		toExplore[tail++] = rootIndex;
+		parents[rootIndex] = rootIndex;
+		depths[rootIndex] = 0;
+		while (head < tail) {
+			int curr = toExplore[head++];
+			for (int k = graph.followerStart(curr); k < graph.followerEnd(curr); k++) {
+				int follower = graph.followerAt(k);
+				if (parents[follower] < 0) {
+					toExplore[tail++] = follower;
+					parents[follower] = curr;
+					depths[follower] = depths[curr] + 1;
+				}
+			}
+		}
+		return new ShortestPathTree(graph, rootIndex, parents, depths, toExplore, tail);
+	}
+
+	/**
+	 * @param otherNode -- node number of a node in the graph
+	 * @return shortest path from otherNode to the influencer, both included, or
+	 *         null if otherNode is the influencer or can not be reached
+	 */
+	public List<Integer> getPath(int otherNode) {
+		int index = graph.indexOf(otherNode);
+		if (index < 0 || index == rootIndex || parents[index] < 0) {
+			return null;
+		}
+		List<Integer> bestPath = new LinkedList<Integer>();
+		for (int next = index; next != rootIndex; next = parents[next]) {
+			bestPath.add(graph.getNodeNum(next));
+		}
+		bestPath.add(graph.getNodeNum(rootIndex));
+		return bestPath;
+	}
+
+	/**
+	 * Bulk mode that hands the path of every reached node, nearest first, to the
+	 * visitor. One buffer is reused for all paths
+	 */
+	public void forEachPath(PathVisitor visitor) {
+		int[] path = new int[getMaxDepth() + 1];
+		for (int i = 1; i < numReached; i++) {
+			int index = order[i];
+			int length = 0;
+			for (int next = index; next != rootIndex; next = parents[next]) {
+				path[length++] = graph.getNodeNum(next);
+			}
+			path[length++] = graph.getNodeNum(rootIndex);
+			visitor.visit(graph.getNodeNum(index), path, length);
+		}
+	}
+
+	/**
+	 * @return number of edges on the shortest path from the influencer to
+	 *         otherNode, or -1 if it can not be reached
+	 */
+	public int getDepth(int otherNode) {
+		int index = graph.indexOf(otherNode);
+		return index < 0 ? -1 : depths[index];
+	}
+
+	/**
+	 * @param otherNode -- node number of a node in the graph
+	 * @return whether otherNode was reached and is not the influencer, so
+	 *         getParent has an answer
+	 */
+	public boolean hasParent(int otherNode) {
+		int index = graph.indexOf(otherNode);
+		return index >= 0 && index != rootIndex && parents[index] >= 0;
+	}
+
+	/**
+	 * Node numbers can be negative, so there is no number left over to mean no
+	 * parent; check hasParent first
+	 *
+	 * @param otherNode -- node number of a reached node other than the
+	 *                  influencer
+	 * @return node number of the next node towards the influencer on
+	 *         otherNode's shortest path
+	 */
+	public int getParent(int otherNode) {
+		if (!hasParent(otherNode)) {
+			throw new IllegalArgumentException("Node " + otherNode + " has no parent in this tree.");
+		}
+		return graph.getNodeNum(parents[graph.indexOf(otherNode)]);
+	}
+
+	/**
+	 * @return depth of the farthest reached node
+	 */
+	public int getMaxDepth() {
+		return depths[order[numReached - 1]];
+	}
+
+	/**
+	 * @return number of nodes reached, not counting the influencer
+	 */
+	public int getReach() {
+		return numReached - 1;
+	}
+
+	public int getInfluentialNodeNum() {
+		return graph.getNodeNum(rootIndex);
+	}
+
+	@Override
+	public String toString() {
+		return "Shortest path tree from " + getInfluentialNodeNum() + " reaching " + getReach()
+				+ " nodes with depth " + getMaxDepth();
+	}
+
+}
@@ -0,0 +1,160 @@
+package influencer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks with the JVM's per thread allocation counter that the cascade and the
+ * edge walks it is built from do not copy adjacency maps or box node numbers
+ *
+ * @author Hillary
+ */
+public class CascadeAllocationTest {
+
+	private static final int NUM_NODES = 20000;
+	private static final int NUM_EDGES = 80000;
+	// a generation may grow the generation end list, nothing per node or edge
+	private static final long MAX_BYTES_PER_GENERATION = 1024;
+	// one map iterator per node for the edge cursor and callbacks
+	private static final long MAX_BYTES_PER_NODE_WALKED = 64;
+
+	private static com.sun.management.ThreadMXBean threads;
+	private static Graph graph;
+
+	@BeforeClass
+	public static void setUp() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+			threads = (com.sun.management.ThreadMXBean) bean;
+			threads.setThreadAllocatedMemoryEnabled(true);
+		}
+		// a few heavily retweeted nodes so the cascade runs for several
+		// generations
+		SplittableRandom random = new SplittableRandom(42);
+		int[] from = new int[NUM_EDGES];
+		int[] to = new int[NUM_EDGES];
+		for (int e = 0; e < NUM_EDGES; e++) {
+			from[e] = random.nextInt(4) == 0 ? random.nextInt(50) : random.nextInt(NUM_NODES);
+			to[e] = random.nextInt(NUM_NODES);
+		}
+		graph = new Graph();
+		graph.addEdges(from, to, NUM_EDGES);
+	}
+
+	@Test
+	public void fullScanGenerationsAllocateNothingPerNode() {
+		checkGenerations(CascadeModelingWithInfluencers.Engine.FULL_SCAN);
+	}
+
+	@Test
+	public void incrementalGenerationsAllocateNothingPerNode() {
+		checkGenerations(CascadeModelingWithInfluencers.Engine.INCREMENTAL);
+	}
+
+	@Test
+	public void edgeCursorDoesNotCopyTheMaps() {
+		assumeTrue(threads != null);
+		Map<Integer, GraphNode> nodes = graph.getAllNodes();
+		GraphNode.EdgeCursor edge = new GraphNode.EdgeCursor();
+		long weight = 0;
+		for (int round = 0; round < 3; round++) {
+			long before = allocatedBytes();
+			weight = 0;
+			for (GraphNode node : nodes.values()) {
+				for (edge.overNodesIFollow(node); edge.next();) {
+					weight += edge.weight();
+				}
+			}
+			long allocated = allocatedBytes() - before;
+			if (round == 2) {
+				assertTrue("walking the edges allocated " + allocated + " bytes",
+						allocated <= MAX_BYTES_PER_NODE_WALKED * nodes.size());
+			}
+		}
+		assertEquals(NUM_EDGES, weight);
+	}
+
+	@Test
+	public void followerCursorDoesNotCopyTheMaps() {
+		assumeTrue(threads != null);
+		Map<Integer, GraphNode> nodes = graph.getAllNodes();
+		GraphNode.EdgeCursor edge = new GraphNode.EdgeCursor();
+		long weight = 0;
+		for (int round = 0; round < 3; round++) {
+			long before = allocatedBytes();
+			weight = 0;
+			for (GraphNode node : nodes.values()) {
+				for (edge.overFollowers(node); edge.next();) {
+					weight += edge.weight();
+				}
+			}
+			long allocated = allocatedBytes() - before;
+			if (round == 2) {
+				assertTrue("walking the followers allocated " + allocated + " bytes",
+						allocated <= MAX_BYTES_PER_NODE_WALKED * nodes.size());
+			}
+		}
+		assertEquals(NUM_EDGES, weight);
+	}
+
+	@Test
+	public void edgeCallbacksDoNotCopyTheMaps() {
+		assumeTrue(threads != null);
+		Map<Integer, GraphNode> nodes = graph.getAllNodes();
+		long[] weight = new long[2];
+		GraphNode.EdgeVisitor followers = (nodeNum, edgeWeight) -> weight[0] += edgeWeight;
+		GraphNode.EdgeVisitor nodesIFollow = (nodeNum, edgeWeight) -> weight[1] += edgeWeight;
+		for (int round = 0; round < 3; round++) {
+			long before = allocatedBytes();
+			weight[0] = 0;
+			weight[1] = 0;
+			for (GraphNode node : nodes.values()) {
+				node.forEachFollower(followers);
+				node.forEachNodeIFollow(nodesIFollow);
+			}
+			long allocated = allocatedBytes() - before;
+			if (round == 2) {
+				assertTrue("visiting the edges allocated " + allocated + " bytes",
+						allocated <= 2 * MAX_BYTES_PER_NODE_WALKED * nodes.size());
+			}
+		}
+		assertEquals(NUM_EDGES, weight[0]);
+		assertEquals(NUM_EDGES, weight[1]);
+	}
+
+	// helper that runs the cascade until the JIT settles and then checks what
+	// each generation of one more run allocated
+	private void checkGenerations(CascadeModelingWithInfluencers.Engine engine) {
+		assumeTrue(threads != null);
+		CsrGraph csr = graph.freeze();
+		CascadeModelingWithInfluencers cascade = new CascadeModelingWithInfluencers(csr, engine);
+		List<Integer> seeds = csr.findInfluencers(10);
+		List<GenerationMetrics> generations = new ArrayList<GenerationMetrics>();
+		cascade.setListener(generations::add);
+		for (int run = 0; run < 20; run++) {
+			generations.clear();
+			cascade.modelResult(10, seeds, 1, 3);
+		}
+		assertTrue("cascade stopped after " + generations.size() + " generations", generations.size() > 2);
+		for (GenerationMetrics metrics : generations) {
+			assertTrue(metrics.toString(), metrics.getBytesAllocated() <= MAX_BYTES_PER_GENERATION);
+		}
+	}
+
+	// helper that reads the calling thread's allocation counter
+	private static long allocatedBytes() {
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+}
@@ -0,0 +1,76 @@
+package influencer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import influencer.CascadeModelingWithInfluencers.Engine;
+
+/**
+ * Checks that every engine, and the PARALLEL engine with and without a pool,
+ * activates the same nodes in the same generations run after run
+ *
+ * @author Hillary
+ */
+public class CascadeEngineTest {
+
+	private static final int NUM_NODES = 20000;
+	private static final int NUM_EDGES = 80000;
+
+	private static CsrGraph csr;
+	private static List<Integer> seeds;
+
+	@BeforeClass
+	public static void setUp() {
+		SplittableRandom random = new SplittableRandom(7);
+		int[] from = new int[NUM_EDGES];
+		int[] to = new int[NUM_EDGES];
+		for (int e = 0; e < NUM_EDGES; e++) {
+			from[e] = random.nextInt(4) == 0 ? random.nextInt(50) : random.nextInt(NUM_NODES);
+			to[e] = random.nextInt(NUM_NODES);
+		}
+		Graph graph = new Graph();
+		graph.addEdges(from, to, NUM_EDGES);
+		csr = graph.freeze();
+		seeds = csr.findInfluencers(10);
+	}
+
+	@Test
+	public void enginesAgree() {
+		CascadeResult expected = new CascadeModelingWithInfluencers(csr, Engine.FULL_SCAN).modelResult(10, seeds, 1, 3);
+		assertTrue("cascade stopped after " + expected.getNumGenerations() + " generations",
+				expected.getNumGenerations() > 2);
+		for (Engine engine : Engine.values()) {
+			checkRuns(expected, new CascadeModelingWithInfluencers(csr, engine));
+		}
+	}
+
+	@Test
+	public void parallelEngineRunsWithoutAPool() {
+		CascadeResult expected = new CascadeModelingWithInfluencers(csr, Engine.FULL_SCAN).modelResult(10, seeds, 1, 3);
+		checkRuns(expected, new CascadeModelingWithInfluencers(csr, Engine.PARALLEL, null));
+		ForkJoinPool pool = new ForkJoinPool(3);
+		try {
+			checkRuns(expected, new CascadeModelingWithInfluencers(csr, Engine.PARALLEL, pool));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	// helper that runs the cascade a few times, so later runs reuse the working
+	// arrays of earlier ones, and compares every run with expected
+	private static void checkRuns(CascadeResult expected, CascadeModelingWithInfluencers cascade) {
+		for (int run = 0; run < 3; run++) {
+			CascadeResult result = cascade.modelResult(10, seeds, 1, 3);
+			assertEquals(expected.getNumGenerations(), result.getNumGenerations());
+			assertEquals(expected.toMap(), result.toMap());
+		}
+	}
+
+}
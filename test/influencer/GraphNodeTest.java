@@ -0,0 +1,85 @@
+package influencer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Checks that the copy free ways of reading a node's edges see the same edges
+ * as the copying getters and can not change the node
+ *
+ * @author Hillary
+ */
+public class GraphNodeTest {
+
+	@Test
+	public void walkersSeeTheSameEdgesAsTheGetters() {
+		GraphNode node = nodeWithEdges();
+		Map<Integer, Integer> followers = new HashMap<Integer, Integer>();
+		node.forEachFollower(followers::put);
+		assertEquals(node.getFollowers(), followers);
+		Map<Integer, Integer> nodesIFollow = new HashMap<Integer, Integer>();
+		node.forEachNodeIFollow(nodesIFollow::put);
+		assertEquals(node.getNodesIFollow(), nodesIFollow);
+
+		GraphNode.EdgeCursor edge = new GraphNode.EdgeCursor();
+		followers.clear();
+		for (edge.overFollowers(node); edge.next();) {
+			followers.put(edge.nodeNum(), edge.weight());
+		}
+		assertEquals(node.getFollowers(), followers);
+		nodesIFollow.clear();
+		for (edge.overNodesIFollow(node); edge.next();) {
+			nodesIFollow.put(edge.nodeNum(), edge.weight());
+		}
+		assertEquals(node.getNodesIFollow(), nodesIFollow);
+	}
+
+	@Test
+	public void viewsFollowLaterEdges() {
+		GraphNode node = nodeWithEdges();
+		Map<Integer, Integer> followers = node.followersView();
+		Map<Integer, Integer> nodesIFollow = node.nodesIFollowView();
+		assertSame(followers, node.followersView());
+		assertSame(nodesIFollow, node.nodesIFollowView());
+		node.addFollowerNode(9, 4);
+		node.addNodeIFollow(2);
+		assertEquals(node.getFollowers(), followers);
+		assertEquals(node.getNodesIFollow(), nodesIFollow);
+		assertEquals(Integer.valueOf(4), followers.get(9));
+		assertEquals(Integer.valueOf(2), nodesIFollow.get(2));
+	}
+
+	@Test
+	public void viewsCanNotChangeTheNode() {
+		GraphNode node = nodeWithEdges();
+		try {
+			node.followersView().put(7, 1);
+			fail("the follower view took an edge");
+		} catch (UnsupportedOperationException expected) {
+		}
+		try {
+			node.nodesIFollowView().remove(2);
+			fail("the followed view dropped an edge");
+		} catch (UnsupportedOperationException expected) {
+		}
+		assertEquals(2, node.getNumFollowers());
+		assertEquals(2, node.getNumNodesIFollow());
+	}
+
+	// helper that makes node 1, retweeted by 3 and 4 and retweeting 2 and 5
+	private static GraphNode nodeWithEdges() {
+		GraphNode node = new GraphNode(1);
+		node.addFollowerNode(3);
+		node.addFollowerNode(4, 3);
+		node.addNodeIFollow(2);
+		node.addNodeIFollow(5, 2);
+		return node;
+	}
+
+}
@@ -0,0 +1,88 @@
+package influencer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that every way of adding to a graph is refused on the influencer
+ * graph views, which share their parent's frozen adjacency
+ *
+ * @author Hillary
+ */
+public class InfluencerGraphViewTest {
+
+	private Graph view;
+
+	@Before
+	public void setUp() {
+		Graph graph = new Graph();
+		for (int num = 1; num <= 4; num++) {
+			graph.addVertex(num);
+		}
+		graph.addEdge(1, 2);
+		graph.addEdge(1, 3, 2);
+		graph.addEdge(3, 4);
+		List<Graph> views = graph.getInfluencerGraphs(1);
+		assertEquals(1, views.size());
+		view = views.get(0);
+	}
+
+	@Test
+	public void addVertexIsRefused() {
+		try {
+			view.addVertex(5);
+			fail("a view took a new node");
+		} catch (UnsupportedOperationException expected) {
+		}
+	}
+
+	@Test
+	public void addEdgeIsRefused() {
+		try {
+			view.addEdge(1, 4);
+			fail("a view took a new edge");
+		} catch (UnsupportedOperationException expected) {
+		}
+	}
+
+	@Test
+	public void weightedAddEdgeIsRefused() {
+		try {
+			view.addEdge(1, 4, 3);
+			fail("a view took a new weighted edge");
+		} catch (UnsupportedOperationException expected) {
+		}
+	}
+
+	@Test
+	public void addEdgesIsRefused() {
+		try {
+			view.addEdges(new int[] { 1 }, new int[] { 4 }, 1);
+			fail("a view took new edges");
+		} catch (UnsupportedOperationException expected) {
+		}
+	}
+
+	@Test
+	public void weightedAddEdgesIsRefused() {
+		try {
+			view.addEdges(new int[] { 1 }, new int[] { 4 }, new int[] { 3 }, 1);
+			fail("a view took new weighted edges");
+		} catch (UnsupportedOperationException expected) {
+		}
+	}
+
+	@Test
+	public void deepCopyCanBeChanged() {
+		Graph copy = view.deepCopy();
+		copy.addVertex(5);
+		copy.addEdge(1, 5, 2);
+		copy.addEdges(new int[] { 5 }, new int[] { 1 }, new int[] { 1 }, 1);
+	}
+
+}
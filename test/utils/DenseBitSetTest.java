@@ -0,0 +1,117 @@
+package util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+/**
+ * Checks DenseBitSet against java.util.BitSet, including indices past the
+ * words it was made with
+ *
+ * @author Hillary
+ */
+public class DenseBitSetTest {
+
+	@Test
+	public void randomOperationsMatchBitSet() {
+		SplittableRandom random = new SplittableRandom(42);
+		// room for 100 indices, so sets up to 1000 make it grow
+		DenseBitSet bits = new DenseBitSet(100);
+		BitSet expected = new BitSet();
+		for (int step = 0; step < 200000; step++) {
+			int index = random.nextInt(1000);
+			int operation = random.nextInt(1000);
+			if (operation < 450) {
+				assertEquals(!expected.get(index), bits.set(index));
+				expected.set(index);
+			} else if (operation < 900) {
+				assertEquals(expected.get(index), bits.clear(index));
+				expected.clear(index);
+			} else if (operation < 999) {
+				assertEquals(expected.get(index), bits.get(index));
+				assertEquals(expected.nextSetBit(index), bits.nextSetBit(index));
+			} else {
+				bits.clearAll();
+				expected.clear();
+			}
+			assertEquals(expected.cardinality(), bits.cardinality());
+		}
+		assertSame(expected, bits, 1200);
+	}
+
+	@Test
+	public void growsPastTheExpectedIndices() {
+		DenseBitSet bits = new DenseBitSet(0);
+		BitSet expected = new BitSet();
+		for (int index : new int[] { 0, 63, 64, 65, 127, 128, 4095, 100000 }) {
+			assertTrue(bits.set(index));
+			assertFalse(bits.set(index));
+			expected.set(index);
+		}
+		assertSame(expected, bits, 100100);
+		assertFalse(bits.get(100001));
+		assertEquals(-1, bits.nextSetBit(100001));
+		assertEquals(-1, bits.nextSetBit(Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void clearAllKeepsTheSetUsable() {
+		DenseBitSet bits = new DenseBitSet();
+		bits.set(3);
+		bits.set(700);
+		bits.clearAll();
+		assertTrue(bits.isEmpty());
+		assertEquals(0, bits.cardinality());
+		assertEquals(-1, bits.nextSetBit(0));
+		assertFalse(bits.clear(700));
+		assertTrue(bits.set(700));
+		assertEquals(700, bits.nextSetBit(0));
+	}
+
+	@Test
+	public void negativeIndicesAreRejected() {
+		DenseBitSet bits = new DenseBitSet();
+		try {
+			bits.set(-1);
+			fail("set took a negative index");
+		} catch (IllegalArgumentException expected) {
+		}
+		try {
+			bits.get(-64);
+			fail("get took a negative index");
+		} catch (IllegalArgumentException expected) {
+		}
+		try {
+			bits.clear(-1);
+			fail("clear took a negative index");
+		} catch (IllegalArgumentException expected) {
+		}
+		try {
+			bits.nextSetBit(Integer.MIN_VALUE);
+			fail("nextSetBit took a negative index");
+		} catch (IllegalArgumentException expected) {
+		}
+		try {
+			new DenseBitSet(-1);
+			fail("made a set with negative expected indices");
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+
+	// helper that checks every index below limit the same way in both sets
+	private static void assertSame(BitSet expected, DenseBitSet bits, int limit) {
+		assertEquals(expected.cardinality(), bits.cardinality());
+		assertEquals(expected.isEmpty(), bits.isEmpty());
+		for (int index = 0; index < limit; index++) {
+			assertEquals(expected.get(index), bits.get(index));
+			assertEquals(expected.nextSetBit(index), bits.nextSetBit(index));
+		}
+	}
+
+}
@@ -0,0 +1,132 @@
+package util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+/**
+ * Checks IntIntMap against a HashMap, above all that removing an entry from
+ * the middle of a probe run leaves the entries after it reachable
+ *
+ * @author Hillary
+ */
+public class IntIntMapTest {
+
+	// table length of a map made for 8 entries
+	private static final int CAPACITY = 16;
+
+	@Test
+	public void removeKeepsCollidingKeysReachable() {
+		// keys that all start probing at the last slot, so the run wraps around
+		List<Integer> keys = keysWithHome(CAPACITY - 1, 5);
+		for (int removed = 0; removed < keys.size(); removed++) {
+			IntIntMap map = new IntIntMap(8);
+			for (int key : keys) {
+				map.put(key, key * 3);
+			}
+			assertTrue(map.remove(keys.get(removed)));
+			assertFalse(map.remove(keys.get(removed)));
+			assertEquals(keys.size() - 1, map.size());
+			for (int key : keys) {
+				if (key == keys.get(removed)) {
+					assertFalse(map.containsKey(key));
+					assertEquals(-1, map.get(key, -1));
+				} else {
+					assertTrue(map.containsKey(key));
+					assertEquals(key * 3, map.get(key, -1));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void removeKeepsRunsFromNeighbouringHomesReachable() {
+		// a run from slot 14 that the keys of slot 15 and slot 0 join
+		List<Integer> keys = new ArrayList<Integer>();
+		keys.addAll(keysWithHome(CAPACITY - 2, 2));
+		keys.addAll(keysWithHome(CAPACITY - 1, 2));
+		keys.addAll(keysWithHome(0, 2));
+		for (int removed = 0; removed < keys.size(); removed++) {
+			IntIntMap map = new IntIntMap(8);
+			Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+			for (int key : keys) {
+				map.put(key, -key);
+				expected.put(key, -key);
+			}
+			map.remove(keys.get(removed));
+			expected.remove(keys.get(removed));
+			assertSame(expected, map, keys);
+		}
+	}
+
+	@Test
+	public void randomOperationsMatchHashMap() {
+		SplittableRandom random = new SplittableRandom(42);
+		IntIntMap map = new IntIntMap();
+		Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+		List<Integer> universe = new ArrayList<Integer>();
+		for (int key = -40; key <= 40; key++) {
+			universe.add(key);
+		}
+		for (int step = 0; step < 200000; step++) {
+			int key = universe.get(random.nextInt(universe.size()));
+			int operation = random.nextInt(100);
+			if (operation < 45) {
+				map.put(key, step);
+				expected.put(key, step);
+			} else if (operation < 90) {
+				assertEquals(expected.remove(key) != null, map.remove(key));
+			} else if (operation < 99) {
+				assertEquals(expected.containsKey(key), map.containsKey(key));
+			} else {
+				map.clear();
+				expected.clear();
+			}
+			assertEquals(expected.size(), map.size());
+		}
+		assertSame(expected, map, universe);
+	}
+
+	@Test
+	public void growStopsAtTheLargestTable() {
+		assertEquals(32, IntHashing.grow(16));
+		assertEquals(1 << 30, IntHashing.grow(1 << 29));
+		try {
+			IntHashing.grow(1 << 30);
+			fail("grew past the largest table");
+		} catch (IllegalStateException expected) {
+		}
+	}
+
+	// helper that checks every key the same way in both maps
+	private static void assertSame(Map<Integer, Integer> expected, IntIntMap map, List<Integer> keys) {
+		assertEquals(expected.size(), map.size());
+		assertEquals(expected.isEmpty(), map.isEmpty());
+		for (int key : keys) {
+			assertEquals(expected.containsKey(key), map.containsKey(key));
+			assertEquals(expected.getOrDefault(key, Integer.MIN_VALUE).intValue(), map.get(key, Integer.MIN_VALUE));
+		}
+	}
+
+	// helper that finds non-zero keys whose probing starts at the same slot of a
+	// table of CAPACITY slots
+	private static List<Integer> keysWithHome(int home, int howMany) {
+		List<Integer> keys = new ArrayList<Integer>();
+		for (int key = 1; keys.size() < howMany; key++) {
+			if ((IntHashing.mix(key) & (CAPACITY - 1)) == home) {
+				keys.add(key);
+			}
+		}
+		return keys;
+	}
+
+}
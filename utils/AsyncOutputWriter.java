@@ -0,0 +1,315 @@
+package util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes text output files on a background thread so the program never waits
+ * on the disk. Each file is opened once, in append mode, and gets a FileSink
+ * that formats text and numbers straight into a byte buffer (numbers without
+ * going through a String). Full buffers are handed to the I/O thread through a
+ * bounded queue; the caller only blocks if the disk falls that many buffers
+ * behind.
+ *
+ * Sinks are meant to be written by one thread at a time. close() writes
+ * whatever is still buffered, waits for the I/O thread and closes the files.
+ *
+ * @author Hillary
+ */
+public class AsyncOutputWriter implements Closeable {
+
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+	public static final int DEFAULT_QUEUE_DEPTH = 16;
+
+	private final int bufferSize;
+	private final BlockingQueue<Write> queue;
+	private final BlockingQueue<byte[]> freeBuffers;
+	private final Map<String, FileSink> sinks = new LinkedHashMap<String, FileSink>();
+	private final Thread ioThread;
+	private volatile IOException failure;
+	private boolean closed;
+
+	public AsyncOutputWriter() {
+		this(DEFAULT_BUFFER_SIZE, DEFAULT_QUEUE_DEPTH);
+	}
+
+	/**
+	 * @param bufferSize -- bytes buffered per file before they are handed off
+	 * @param queueDepth -- most buffers waiting for the I/O thread at once
+	 */
+	public AsyncOutputWriter(int bufferSize, int queueDepth) {
+		if (bufferSize < 64 || queueDepth <= 0) {
+			throw new IllegalArgumentException("Buffer size must be at least 64 and queue depth positive.");
+		}
+		this.bufferSize = bufferSize;
+		this.queue = new ArrayBlockingQueue<Write>(queueDepth);
+		this.freeBuffers = new ArrayBlockingQueue<byte[]>(queueDepth + 1);
+		this.ioThread = new Thread(this::drain, "output-writer");
+		ioThread.setDaemon(true);
+		ioThread.start();
+	}
+
+	/**
+	 * @param path -- file to append to, created if missing
+	 * @return the sink of the file, the same one for every call with this path
+	 * @throws IOException if the file can not be opened
+	 */
+	public synchronized FileSink open(String path) throws IOException {
+		if (closed) {
+			throw new IllegalStateException("Writer is closed.");
+		}
+		String key = Paths.get(path).toAbsolutePath().normalize().toString();
+		FileSink sink = sinks.get(key);
+		if (sink == null) {
+			FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+			sink = new FileSink(channel);
+			sinks.put(key, sink);
+		}
+		return sink;
+	}
+
+	/**
+	 * Writes out every sink's buffer, waits for the I/O thread to finish and
+	 * closes the files
+	 *
+	 * @throws IOException the first error the I/O thread ran into, if any
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			try {
+				for (FileSink sink : sinks.values()) {
+					try {
+						sink.handOff();
+					} catch (UncheckedIOException e) {
+						// the I/O thread already failed, failure is thrown below
+					}
+				}
+			} finally {
+				// the I/O thread only stops at the end marker
+				put(new Write(null, null, 0));
+			}
+			ioThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for output to be written.", e);
+		} finally {
+			for (FileSink sink : sinks.values()) {
+				try {
+					sink.channel.close();
+				} catch (IOException e) {
+					recordFailure(e);
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	// body of the I/O thread: writes buffers in the order they were handed off
+	// until the end marker arrives
+	private void drain() {
+		while (true) {
+			Write write;
+			try {
+				write = queue.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			if (write.channel == null) {
+				return;
+			}
+			if (failure == null) {
+				try {
+					ByteBuffer buffer = ByteBuffer.wrap(write.bytes, 0, write.length);
+					while (buffer.hasRemaining()) {
+						write.channel.write(buffer);
+					}
+				} catch (IOException e) {
+					recordFailure(e);
+				}
+			}
+			freeBuffers.offer(write.bytes);
+		}
+	}
+
+	// helper that keeps the first I/O error for close() to throw
+	private void recordFailure(IOException e) {
+		if (failure == null) {
+			failure = e;
+		}
+	}
+
+	// helper to FileSink that queues a buffer, waiting if the queue is full
+	private void put(Write write) throws InterruptedException {
+		queue.put(write);
+	}
+
+	// helper to FileSink that reuses a buffer the I/O thread is done with
+	private byte[] newBuffer() {
+		byte[] buffer = freeBuffers.poll();
+		return buffer != null ? buffer : new byte[bufferSize];
+	}
+
+	/**
+	 * Buffered text output to one file. Methods return the sink so calls can be
+	 * chained
+	 */
+	public final class FileSink {
+		private final FileChannel channel;
+		private byte[] bytes;
+		private int length;
+
+		private FileSink(FileChannel channel) {
+			this.channel = channel;
+			this.bytes = newBuffer();
+		}
+
+		public FileSink print(int value) {
+			return print((long) value);
+		}
+
+		/**
+		 * Writes the decimal digits of value without making a String
+		 */
+		public FileSink print(long value) {
+			ensure(20);
+			if (value == Long.MIN_VALUE) {
+				return print(Long.toString(value));
+			}
+			if (value < 0) {
+				bytes[length++] = '-';
+				value = -value;
+			}
+			int end = length + digits(value);
+			for (int i = end - 1; i >= length; i--) {
+				bytes[i] = (byte) ('0' + value % 10);
+				value /= 10;
+			}
+			length = end;
+			return this;
+		}
+
+		public FileSink print(char c) {
+			if (c < 0x80) {
+				ensure(1);
+				bytes[length++] = (byte) c;
+				return this;
+			}
+			return print(String.valueOf(c));
+		}
+
+		/**
+		 * Writes text as UTF-8, copying ASCII characters straight into the buffer
+		 */
+		public FileSink print(CharSequence text) {
+			for (int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				if (c >= 0x80) {
+					byte[] encoded = text.subSequence(i, text.length()).toString().getBytes(StandardCharsets.UTF_8);
+					for (byte b : encoded) {
+						ensure(1);
+						bytes[length++] = b;
+					}
+					return this;
+				}
+				ensure(1);
+				bytes[length++] = (byte) c;
+			}
+			return this;
+		}
+
+		/**
+		 * Writes the numbers the way List.toString() does: [1, 2, 3]
+		 */
+		public FileSink print(List<Integer> numbers) {
+			print('[');
+			boolean first = true;
+			for (int number : numbers) {
+				if (!first) {
+					print(',').print(' ');
+				}
+				print(number);
+				first = false;
+			}
+			return print(']');
+		}
+
+		public FileSink println() {
+			return print(System.lineSeparator());
+		}
+
+		public FileSink println(CharSequence text) {
+			return print(text).println();
+		}
+
+		// helper that hands the buffer off when fewer than needed bytes are left
+		private void ensure(int needed) {
+			if (length + needed > bytes.length) {
+				handOff();
+			}
+		}
+
+		// helper that queues the buffered bytes for the I/O thread
+		private void handOff() {
+			if (failure != null) {
+				throw new UncheckedIOException("Output could not be written.", failure);
+			}
+			if (length == 0) {
+				return;
+			}
+			try {
+				put(new Write(channel, bytes, length));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while queueing output.", e);
+			}
+			bytes = newBuffer();
+			length = 0;
+		}
+	}
+
+	// helper to print(long) that counts the digits of a non-negative number
+	private static int digits(long value) {
+		int digits = 1;
+		while (value >= 10) {
+			value /= 10;
+			digits++;
+		}
+		return digits;
+	}
+
+	/**
+	 * One buffer waiting to be written. A null channel tells the I/O thread to
+	 * stop
+	 */
+	private static final class Write {
+		private final FileChannel channel;
+		private final byte[] bytes;
+		private final int length;
+
+		private Write(FileChannel channel, byte[] bytes, int length) {
+			this.channel = channel;
+			this.bytes = bytes;
+			this.length = length;
+		}
+	}
+
+}
@@ -0,0 +1,119 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Set of small non-negative ints, such as dense node indices, as one bit each
+ * in a long array that grows to fit the largest index set. Takes an eighth of
+ * the memory of a boolean array and a tiny fraction of a Set of Integers.
+ *
+ * @author Hillary
+ */
+public class DenseBitSet {
+
+	private long[] words;
+	private int cardinality;
+
+	public DenseBitSet() {
+		this(64);
+	}
+
+	/**
+	 * @param expectedIndices -- indices 0..expectedIndices - 1 fit without
+	 *                        growing
+	 */
+	public DenseBitSet(int expectedIndices) {
+		if (expectedIndices < 0) {
+			throw new IllegalArgumentException("Expected indices can not be negative.");
+		}
+		words = new long[(int) (((long) expectedIndices + 63) >>> 6)];
+	}
+
+	/**
+	 * @return true if the index was not in the set yet
+	 */
+	public boolean set(int index) {
+		checkIndex(index);
+		int word = index >>> 6;
+		if (word >= words.length) {
+			words = Arrays.copyOf(words, Math.max(word + 1, Math.min(words.length * 2, (Integer.MAX_VALUE >>> 6) + 1)));
+		}
+		long bit = 1L << index;
+		if ((words[word] & bit) != 0) {
+			return false;
+		}
+		words[word] |= bit;
+		cardinality++;
+		return true;
+	}
+
+	public boolean get(int index) {
+		checkIndex(index);
+		int word = index >>> 6;
+		return word < words.length && (words[word] & (1L << index)) != 0;
+	}
+
+	/**
+	 * @return true if the index was in the set
+	 */
+	public boolean clear(int index) {
+		if (!get(index)) {
+			return false;
+		}
+		words[index >>> 6] &= ~(1L << index);
+		cardinality--;
+		return true;
+	}
+
+	/**
+	 * @return how many indices are in the set
+	 */
+	public int cardinality() {
+		return cardinality;
+	}
+
+	public boolean isEmpty() {
+		return cardinality == 0;
+	}
+
+	/**
+	 * @param from -- index to start looking at
+	 * @return the lowest index in the set at or after from, or -1 if there is
+	 *         none
+	 */
+	public int nextSetBit(int from) {
+		checkIndex(from);
+		int word = from >>> 6;
+		if (word >= words.length) {
+			return -1;
+		}
+		long bits = words[word] & (-1L << from);
+		while (true) {
+			if (bits != 0) {
+				return (word << 6) + Long.numberOfTrailingZeros(bits);
+			}
+			if (++word == words.length) {
+				return -1;
+			}
+			bits = words[word];
+		}
+	}
+
+	public void clearAll() {
+		Arrays.fill(words, 0L);
+		cardinality = 0;
+	}
+
+	// helper that rejects negative indices
+	private static void checkIndex(int index) {
+		if (index < 0) {
+			throw new IllegalArgumentException("Index can not be negative: " + index + ".");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "DenseBitSet of " + cardinality + " indices";
+	}
+
+}
@@ -0,0 +1,285 @@
+package util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loader for the same edge list files as GraphLoader that memory maps the file
+ * and parses the digits straight out of the mapped buffer instead of going
+ * through Scanner. The file is split into chunks on line boundaries that can
+ * be parsed on several cores. Each chunk is handed to the graph in file order
+ * as soon as it is parsed, so the graph is the same as the one GraphLoader
+ * builds, and only a few chunks per thread are ever held on the heap however
+ * large the file is.
+ *
+ * @author Hillary
+ */
+public class FastGraphLoader {
+
+	// a single mapping can not be larger than this
+	private static final long MAX_CHUNK_BYTES = Integer.MAX_VALUE;
+	// most bytes per chunk, so the parsed edges waiting for the graph stay small
+	private static final long TARGET_CHUNK_BYTES = 16L << 20;
+	// parsed or parsing chunks per thread waiting to be added to the graph
+	private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+
+	/**
+	 * Loads graph with data from a file. The file should consist of lines with 2
+	 * integers each, corresponding to a "from" vertex and a "to" vertex.
+	 *
+	 * @param g        -- graph to add the vertices and edges to
+	 * @param filename -- edge list to read
+	 * @param parallel -- whether to parse chunks of the file on all cores
+	 * @return timing of the load or null if the file could not be read or
+	 *         parsed, in which case g may hold the edges before the bad part
+	 */
+	public static LoadReport loadGraph(influencer.Graph g, String filename, boolean parallel) {
+		int threads = parallel ? Runtime.getRuntime().availableProcessors() : 1;
+		return loadGraph(g, filename, threads);
+	}
+
+	/**
+	 * @param g        -- graph to add the vertices and edges to
+	 * @param filename -- edge list to read
+	 * @param threads  -- how many chunks to parse at once, 1 parses on the
+	 *                 calling thread
+	 * @return timing of the load or null if the file could not be read or
+	 *         parsed, in which case g may hold the edges before the bad part
+	 */
+	public static LoadReport loadGraph(influencer.Graph g, String filename, int threads) {
+		return load(g::addEdges, filename, threads);
+	}
+
+	/**
+	 * Loads the edges into an off heap graph instead of a Graph; call build() on
+	 * the builder afterwards
+	 *
+	 * @param builder  -- builder to add the edges to
+	 * @param filename -- edge list to read
+	 * @param threads  -- how many chunks to parse at once, 1 parses on the
+	 *                 calling thread
+	 * @return timing of the load or null if the file could not be read or
+	 *         parsed, in which case the builder may hold the edges before the
+	 *         bad part
+	 */
+	public static LoadReport loadGraph(influencer.OffHeapGraphBuilder builder, String filename, int threads) {
+		return load(builder::addEdges, filename, threads);
+	}
+
+	/**
+	 * Where loadGraph puts the parsed edges, chunk by chunk in file order
+	 */
+	private interface EdgeSink {
+		void addEdges(int[] from, int[] to, int numEdges);
+	}
+
+	// helper to loadGraph that parses the file and hands the edges to the sink
+	private static LoadReport load(EdgeSink sink, String filename, int threads) {
+		if (threads <= 0) {
+			throw new IllegalArgumentException("Number of threads must be a positive integer.");
+		}
+		long start = System.nanoTime();
+		long lines;
+		long size;
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			size = channel.size();
+			long[] bounds = findChunkBounds(channel, size, threads);
+			lines = parseChunks(channel, bounds, threads, sink);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+		String loader = "FastGraphLoader (" + threads + (threads == 1 ? " thread)" : " threads)");
+		return new LoadReport(loader, lines, size, System.nanoTime() - start);
+	}
+
+	// helper to loadGraph that splits the file into byte ranges that each start
+	// at the beginning of a line
+	private static long[] findChunkBounds(FileChannel channel, long size, int threads) throws IOException {
+		long numChunks = Math.max(threads, (size + TARGET_CHUNK_BYTES - 1) / TARGET_CHUNK_BYTES);
+		// leave room for a boundary to move forward to the end of its line
+		long chunkBytes = Math.max(1, Math.min(size / numChunks, MAX_CHUNK_BYTES / 2));
+		List<Long> bounds = new ArrayList<Long>();
+		bounds.add(0L);
+		long position = chunkBytes;
+		ByteBuffer buffer = ByteBuffer.allocate(256);
+		while (position < size) {
+			long lineEnd = nextLineStart(channel, position, size, buffer);
+			if (lineEnd > bounds.get(bounds.size() - 1) && lineEnd < size) {
+				bounds.add(lineEnd);
+			}
+			position = Math.max(lineEnd, position) + chunkBytes;
+		}
+		bounds.add(size);
+		long[] result = new long[bounds.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = bounds.get(i);
+		}
+		return result;
+	}
+
+	// helper to findChunkBounds that returns the position just after the next
+	// newline at or after position
+	private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer buffer)
+			throws IOException {
+		while (position < size) {
+			buffer.clear();
+			int read = channel.read(buffer, position);
+			if (read <= 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+		return size;
+	}
+
+	// helper to loadGraph that parses the chunks, in parallel when asked to,
+	// and hands each one to the sink in file order before dropping it. Returns
+	// the number of edges
+	private static long parseChunks(FileChannel channel, long[] bounds, int threads, EdgeSink sink)
+			throws IOException {
+		int numChunks = bounds.length - 1;
+		long lines = 0;
+		if (threads == 1 || numChunks == 1) {
+			for (int i = 0; i < numChunks; i++) {
+				EdgeChunk chunk = parseChunk(channel, bounds[i], bounds[i + 1]);
+				sink.addEdges(chunk.from, chunk.to, chunk.size);
+				lines += chunk.size;
+			}
+			return lines;
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, numChunks));
+		try {
+			int maxInFlight = threads * CHUNKS_IN_FLIGHT_PER_THREAD;
+			Deque<Future<EdgeChunk>> inFlight = new ArrayDeque<Future<EdgeChunk>>(maxInFlight);
+			int submitted = 0;
+			while (submitted < numChunks || !inFlight.isEmpty()) {
+				while (submitted < numChunks && inFlight.size() < maxInFlight) {
+					final long from = bounds[submitted];
+					final long to = bounds[submitted + 1];
+					inFlight.add(pool.submit(new Callable<EdgeChunk>() {
+						@Override
+						public EdgeChunk call() throws IOException {
+							return parseChunk(channel, from, to);
+						}
+					}));
+					submitted++;
+				}
+				EdgeChunk chunk = inFlight.poll().get();
+				sink.addEdges(chunk.from, chunk.to, chunk.size);
+				lines += chunk.size;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while loading graph.", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Could not parse part of the graph file.", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		return lines;
+	}
+
+	// helper to parseChunks that maps one byte range and reads the pairs of
+	// integers in it. Rejects what Scanner.nextInt would: anything but digits
+	// with an optional leading minus between whitespace, values out of int range
+	// and a number left without a partner
+	private static EdgeChunk parseChunk(FileChannel channel, long start, long end) throws IOException {
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		int limit = buffer.limit();
+		EdgeChunk chunk = new EdgeChunk(Math.min(Integer.MAX_VALUE - 8, Math.max(16, limit / 12)));
+		int pos = 0;
+		boolean haveFrom = false;
+		int from = 0;
+		while (pos < limit) {
+			byte b = buffer.get(pos);
+			if (isWhitespace(b)) {
+				pos++;
+				continue;
+			}
+			int tokenStart = pos;
+			boolean negative = b == '-';
+			if (negative) {
+				pos++;
+			}
+			long value = 0;
+			while (pos < limit && (b = buffer.get(pos)) >= '0' && b <= '9') {
+				value = value * 10 + (b - '0');
+				if (value > 1L + Integer.MAX_VALUE) {
+					throw malformed(start + tokenStart);
+				}
+				pos++;
+			}
+			if (pos == tokenStart + (negative ? 1 : 0) || (pos < limit && !isWhitespace(buffer.get(pos)))
+					|| (!negative && value > Integer.MAX_VALUE)) {
+				throw malformed(start + tokenStart);
+			}
+			int number = (int) (negative ? -value : value);
+			if (haveFrom) {
+				chunk.add(from, number);
+			} else {
+				from = number;
+			}
+			haveFrom = !haveFrom;
+		}
+		if (haveFrom) {
+			throw new IOException("Edge list has a vertex without a partner before byte " + end + ".");
+		}
+		return chunk;
+	}
+
+	// helper to parseChunk with the separators Scanner skips between numbers
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B;
+	}
+
+	// helper to parseChunk that reports a token that is not an int
+	private static IOException malformed(long position) {
+		return new IOException("Edge list has a token that is not an integer at byte " + position + ".");
+	}
+
+	/**
+	 * Edges parsed from one chunk of the file, kept as two growable primitive
+	 * arrays
+	 */
+	private static final class EdgeChunk {
+		private int[] from;
+		private int[] to;
+		private int size;
+
+		private EdgeChunk(int capacity) {
+			from = new int[capacity];
+			to = new int[capacity];
+		}
+
+		private void add(int v1, int v2) {
+			if (size == from.length) {
+				from = Arrays.copyOf(from, size * 2);
+				to = Arrays.copyOf(to, size * 2);
+			}
+			from[size] = v1;
+			to[size] = v2;
+			size++;
+		}
+	}
+
+}
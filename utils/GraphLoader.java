@@ -7,9 +7,7 @@
 package util;
 
 import java.io.File;
-import java.util.HashSet;
 import java.util.Scanner;
-import java.util.Set;
 
 
 public class GraphLoader {
@@ -18,59 +16,47 @@ public class GraphLoader {
      * The file should consist of lines with 2 integers each, corresponding
      * to a "from" vertex and a "to" vertex.
      */ 
-    public static void loadGraph(graph.Graph g, String filename) {
-        Set<Integer> seen = new HashSet<Integer>();
-        Scanner sc;
-        try {
-            sc = new Scanner(new File(filename));
-        } catch (Exception e) {
-            e.printStackTrace();
-            return;
-        }
-        // Iterate over the lines in the file, adding new
-        // vertices as they are found and connecting them with edges.
-        while (sc.hasNextInt()) {
-            int v1 = sc.nextInt();
-            int v2 = sc.nextInt();
-            if (!seen.contains(v1)) {
-                g.addVertex(v1);
-                seen.add(v1);
-            }
-            if (!seen.contains(v2)) {
-                g.addVertex(v2);
-                seen.add(v2);
-            }
-            g.addEdge(v1, v2);
-        }
-        
-        sc.close();
+    public static void loadGraph(influencer.Graph g, String filename) {
+        scanGraph(g, filename);
     }
     
-    public static void loadGraph(influencer.Graph g, String filename) {
-        Set<Integer> seen = new HashSet<Integer>();
+    /**
+     * Same as loadGraph(influencer.Graph, String) but reports how long the
+     * Scanner based load took so it can be compared to FastGraphLoader.
+     */
+    public static LoadReport loadGraphTimed(influencer.Graph g, String filename) {
+        long start = System.nanoTime();
+        long lines = scanGraph(g, filename);
+        long bytes = new File(filename).length();
+        return new LoadReport("GraphLoader (Scanner)", lines, bytes, System.nanoTime() - start);
+    }
+    
+    private static long scanGraph(influencer.Graph g, String filename) {
+        IntHashSet seen = new IntHashSet();
         Scanner sc;
         try {
             sc = new Scanner(new File(filename));
         } catch (Exception e) {
             e.printStackTrace();
-            return;
+            return 0;
         }
+        long lines = 0;
         // Iterate over the lines in the file, adding new
         // vertices as they are found and connecting them with edges.
         while (sc.hasNextInt()) {
             int v1 = sc.nextInt();
             int v2 = sc.nextInt();
-            if (!seen.contains(v1)) {
+            if (seen.add(v1)) {
                 g.addVertex(v1);
-                seen.add(v1);
             }
-            if (!seen.contains(v2)) {
+            if (seen.add(v2)) {
                 g.addVertex(v2);
-                seen.add(v2);
             }
             g.addEdge(v1, v2);
+            lines++;
         }
         
         sc.close();
+        return lines;
     }
 }
@@ -0,0 +1,106 @@
+package util;
+
+/**
+ * Set of ints with open addressing and linear probing over one int array, so
+ * adding and checking a node number never boxes it. 0 marks a free slot and
+ * is tracked with a flag of its own. The table doubles once it is half full.
+ *
+ * @author Hillary
+ */
+public class IntHashSet {
+
+	private static final int MIN_CAPACITY = 16;
+
+	private int[] keys;
+	private int mask;
+	private int size;
+	private boolean hasZero;
+
+	public IntHashSet() {
+		this(MIN_CAPACITY / 2);
+	}
+
+	/**
+	 * @param expectedSize -- how many ints will be added without the table
+	 *                     growing
+	 */
+	public IntHashSet(int expectedSize) {
+		if (expectedSize < 0) {
+			throw new IllegalArgumentException("Expected size can not be negative.");
+		}
+		int capacity = IntHashing.tableSize(expectedSize, MIN_CAPACITY);
+		keys = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * @return true if the value was not in the set yet
+	 * @throws IllegalStateException if the set is too full to grow
+	 */
+	public boolean add(int value) {
+		if (value == 0) {
+			if (hasZero) {
+				return false;
+			}
+			hasZero = true;
+			size++;
+			return true;
+		}
+		int slot = IntHashing.mix(value) & mask;
+		while (keys[slot] != 0) {
+			if (keys[slot] == value) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = value;
+		if (++size > (mask + 1) >>> 1) {
+			rehash(IntHashing.grow(keys.length));
+		}
+		return true;
+	}
+
+	public boolean contains(int value) {
+		if (value == 0) {
+			return hasZero;
+		}
+		int slot = IntHashing.mix(value) & mask;
+		while (keys[slot] != 0) {
+			if (keys[slot] == value) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	// helper to add that moves every entry into a table of the new capacity
+	private void rehash(int capacity) {
+		int[] old = keys;
+		keys = new int[capacity];
+		mask = capacity - 1;
+		for (int key : old) {
+			if (key != 0) {
+				int slot = IntHashing.mix(key) & mask;
+				while (keys[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = key;
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "IntHashSet of " + size + " values";
+	}
+
+}
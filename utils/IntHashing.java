@@ -0,0 +1,48 @@
+package util;
+
+/**
+ * Hashing shared by IntHashSet and IntIntMap
+ *
+ * @author Hillary
+ */
+final class IntHashing {
+
+	// most entries a table can hold, half of the largest power of two array
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private IntHashing() {
+	}
+
+	/**
+	 * Spreads the bits of a key so that node numbers close together land far
+	 * apart in the table
+	 */
+	static int mix(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * @return power of two table length that holds expectedSize entries at most
+	 *         half full
+	 */
+	static int tableSize(int expectedSize, int minCapacity) {
+		long needed = Math.max((long) minCapacity, 2L * expectedSize);
+		if (needed > MAX_CAPACITY) {
+			return MAX_CAPACITY;
+		}
+		return Integer.highestOneBit((int) needed - 1) << 1;
+	}
+
+	/**
+	 * @return table length twice capacity, for a table that is half full
+	 * @throws IllegalStateException if capacity is already the largest table
+	 */
+	static int grow(int capacity) {
+		if (capacity >= MAX_CAPACITY) {
+			throw new IllegalStateException("Table is full at " + (MAX_CAPACITY >>> 1) + " entries.");
+		}
+		return capacity * 2;
+	}
+
+}
@@ -0,0 +1,186 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Map from int to int with open addressing and linear probing over two
+ * parallel int arrays, so looking up a node number never boxes it or its
+ * value. Works the same way as IntHashSet: 0 marks a free key slot and the
+ * entry for key 0 is kept on the side. Removal shifts the following entries
+ * back instead of leaving markers.
+ *
+ * @author Hillary
+ */
+public class IntIntMap {
+
+	private static final int MIN_CAPACITY = 16;
+
+	private int[] keys;
+	private int[] values;
+	private int mask;
+	private int size;
+	private boolean hasZero;
+	private int zeroValue;
+
+	public IntIntMap() {
+		this(MIN_CAPACITY / 2);
+	}
+
+	/**
+	 * @param expectedSize -- how many entries will be put without the table
+	 *                     growing
+	 */
+	public IntIntMap(int expectedSize) {
+		if (expectedSize < 0) {
+			throw new IllegalArgumentException("Expected size can not be negative.");
+		}
+		int capacity = IntHashing.tableSize(expectedSize, MIN_CAPACITY);
+		keys = new int[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * @param key          -- key to look up
+	 * @param defaultValue -- what to return if the key is not in the map
+	 * @return the key's value or defaultValue
+	 */
+	public int get(int key, int defaultValue) {
+		if (key == 0) {
+			return hasZero ? zeroValue : defaultValue;
+		}
+		int slot = IntHashing.mix(key) & mask;
+		while (keys[slot] != 0) {
+			if (keys[slot] == key) {
+				return values[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return defaultValue;
+	}
+
+	public boolean containsKey(int key) {
+		if (key == 0) {
+			return hasZero;
+		}
+		int slot = IntHashing.mix(key) & mask;
+		while (keys[slot] != 0) {
+			if (keys[slot] == key) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * Adds the entry or replaces the key's value
+	 *
+	 * @throws IllegalStateException if the map is too full to grow
+	 */
+	public void put(int key, int value) {
+		if (key == 0) {
+			if (!hasZero) {
+				hasZero = true;
+				size++;
+			}
+			zeroValue = value;
+			return;
+		}
+		int slot = IntHashing.mix(key) & mask;
+		while (keys[slot] != 0) {
+			if (keys[slot] == key) {
+				values[slot] = value;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		if (++size > (mask + 1) >>> 1) {
+			rehash(IntHashing.grow(keys.length));
+		}
+	}
+
+	/**
+	 * @return true if the key was in the map
+	 */
+	public boolean remove(int key) {
+		if (key == 0) {
+			if (!hasZero) {
+				return false;
+			}
+			hasZero = false;
+			size--;
+			return true;
+		}
+		int slot = IntHashing.mix(key) & mask;
+		while (keys[slot] != 0) {
+			if (keys[slot] == key) {
+				shiftBack(slot);
+				size--;
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		Arrays.fill(keys, 0);
+		hasZero = false;
+		size = 0;
+	}
+
+	// helper to remove that closes the gap at slot by moving back later entries
+	// of the same probe run that may no longer be reachable
+	private void shiftBack(int slot) {
+		int gap = slot;
+		int next = (gap + 1) & mask;
+		while (keys[next] != 0) {
+			int home = IntHashing.mix(keys[next]) & mask;
+			// the entry can fill the gap unless its home lies after the gap and up
+			// to next, going around the table
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				keys[gap] = keys[next];
+				values[gap] = values[next];
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+		keys[gap] = 0;
+	}
+
+	// helper to put that moves every entry into a table of the new capacity
+	private void rehash(int capacity) {
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new int[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != 0) {
+				int slot = IntHashing.mix(oldKeys[i]) & mask;
+				while (keys[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "IntIntMap of " + size + " entries";
+	}
+
+}
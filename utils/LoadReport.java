@@ -0,0 +1,54 @@
+package util;
+
+/**
+ * Timing summary of one edge list load so the different loaders can be
+ * compared
+ *
+ * @author Hillary
+ */
+public class LoadReport {
+
+	private final String loader;
+	private final long lines;
+	private final long bytes;
+	private final long nanos;
+
+	/**
+	 * @param loader -- name of the loading path
+	 * @param lines  -- how many edge lines were read
+	 * @param bytes  -- size of the file read
+	 * @param nanos  -- wall clock time of the load
+	 */
+	public LoadReport(String loader, long lines, long bytes, long nanos) {
+		this.loader = loader;
+		this.lines = lines;
+		this.bytes = bytes;
+		this.nanos = nanos;
+	}
+
+	public long getLines() {
+		return lines;
+	}
+
+	public long getBytes() {
+		return bytes;
+	}
+
+	public long getNanos() {
+		return nanos;
+	}
+
+	/**
+	 * @return edge lines read per second of wall clock time
+	 */
+	public double linesPerSecond() {
+		return nanos == 0 ? 0 : lines * 1e9 / nanos;
+	}
+
+	@Override
+	public String toString() {
+		return loader + " loaded " + lines + " lines (" + bytes + " bytes) in " + (nanos / 1000000) + " ms, "
+				+ Math.round(linesPerSecond()) + " lines/sec";
+	}
+
+}
@@ -5,12 +5,35 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import influencer.CascadeResult;
+
+/**
+ * Saves program output to text and csv files. By default every call opens the
+ * file, writes and closes it again. Given an AsyncOutputWriter, the printer
+ * instead writes through one buffered handle per file that a background
+ * thread flushes; the files are complete once the writer is closed.
+ */
 public class OutputPrinter {
 
+	private final AsyncOutputWriter writer;
+
+	public OutputPrinter() {
+		this(null);
+	}
+
+	/**
+	 * @param writer -- buffered writer to print through, or null to open the
+	 *               file on every call
+	 */
+	public OutputPrinter(AsyncOutputWriter writer) {
+		this.writer = writer;
+	}
+
 	 
 	/**
 	 * Creates the File for the influencer graph info. Since the printer will be
@@ -22,11 +45,9 @@ public class OutputPrinter {
 	 */
 	public File fileCreationForInfluencerInfo(String outputFilePath, String networkInfo) {
 		File newFile = new File(outputFilePath);
-		try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(newFile, true)), true);) {
-			newFile.createNewFile();
-			out.println(networkInfo);
-			out.println();
-		} catch (IOException e) {
+		try (Output out = openOutput(outputFilePath)) {
+			out.text(networkInfo).newLine().newLine();
+		} catch (IOException | UncheckedIOException e) {
 			System.out.println("Error when trying to create file for influencer graph info.");
 		}
 		return newFile;
@@ -40,9 +61,9 @@ public class OutputPrinter {
 	 * @param graphInfo toString value from the graph  object
 	 */
 	public void printOutputInfluentialNodes(File outputFile, String graphInfo) {
-		try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(outputFile, true)), true);) {
-			out.println(graphInfo);
-		} catch (IOException e) {
+		try (Output out = openOutput(outputFile.getPath())) {
+			out.text(graphInfo).newLine();
+		} catch (IOException | UncheckedIOException e) {
 			System.out.println("Error when trying to write output about influencer graphs.");
 		}
 	}
@@ -55,11 +76,29 @@ public class OutputPrinter {
 	 * @param path 			list of nodes along the shortest path
 	 */
 	public void printOutputShortestPathsToInfluencer(File outputFile, String pathInfo, List<Integer> path) {
-		try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(outputFile, true)), true);) {
-			out.print(pathInfo);
-			out.println(path);
+		try (Output out = openOutput(outputFile.getPath())) {
+			out.text(pathInfo).numbers(path).newLine();
+		} catch (IOException | UncheckedIOException e) {
+			System.out.println("Error when trying to write output about influencer graphs.");
+		}
+	}
 
-		} catch (IOException e) {
+	
+	/**
+	 * Same as printOutputShortestPathsToInfluencer(File, String, List) but builds
+	 * the "Path from Node" text itself, so a buffered writer formats it without
+	 * making any strings
+	 * @param outputFile 	where data is being written 
+	 * @param nodeNum 		node the path starts from
+	 * @param influentialNodeNum 	influencer the path ends at
+	 * @param path 			list of nodes along the shortest path
+	 */
+	public void printOutputShortestPathsToInfluencer(File outputFile, int nodeNum, int influentialNodeNum,
+			List<Integer> path) {
+		try (Output out = openOutput(outputFile.getPath())) {
+			out.text("Path from Node: ").number(nodeNum).text(" to Influencer node: ").number(influentialNodeNum)
+					.text("--> ").numbers(path).newLine();
+		} catch (IOException | UncheckedIOException e) {
 			System.out.println("Error when trying to write output about influencer graphs.");
 		}
 	}
@@ -71,18 +110,14 @@ public class OutputPrinter {
 	 * @param resultMap			tells how many nodes adopted new behavior
 	 */
 	public void printOutputNumNodesPerGenerationCascade(String outputFilePath, Map<Integer, Set<Integer>> resultMap) {
-		File newFile = new File(outputFilePath);
-		try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(newFile, true)), true);) {
-			newFile.createNewFile();
+		try (Output out = openOutput(outputFilePath)) {
 			int generation = 0;
-			out.println("Generation, numberActive");
+			out.text("Generation, numberActive").newLine();
 			for (int howMany : resultMap.keySet()) {
-				out.print(generation + ", ");
-				out.print(howMany);
-				out.println();
+				out.number(generation).text(", ").number(howMany).newLine();
 				generation++;
 			}
-		} catch (IOException e) {
+		} catch (IOException | UncheckedIOException e) {
 			System.out.println("Error when trying to write output for number of activeNodes for cascade.");
 		}
 	}
@@ -95,21 +130,135 @@ public class OutputPrinter {
 	 */
 	public void printOutputActiveNodesEachGenerationCascade(String outputFilePath,
 			Map<Integer, Set<Integer>> resultMap) {
-		try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(outputFilePath, true)), true);) {
+		try (Output out = openOutput(outputFilePath)) {
 			int generation = 0;
-			out.println("Generation, newlyActiveNodeNums");
+			out.text("Generation, newlyActiveNodeNums").newLine();
 			for (Set<Integer> nowActiveNodes : resultMap.values()) {
-				out.print(generation + ", ");
+				out.number(generation).text(", ");
 				for (int num : nowActiveNodes) {
-					out.print(num);
-					out.print(", ");
+					out.number(num).text(", ");
 				}
-				out.println();
+				out.newLine();
 				generation++;
 			}
-		} catch (IOException e) {
+		} catch (IOException | UncheckedIOException e) {
 			System.out.println("No file found when trying to write output data to file.");
 		}
 	}
 
-}
+	/**
+	 * Saves a columnar cascade result in the same two csv sections as
+	 * printOutputNumNodesPerGenerationCascade and
+	 * printOutputActiveNodesEachGenerationCascade, streaming straight from the
+	 * result's arrays
+	 * @param outputFilePath	path for file creation
+	 * @param result			cascade result
+	 */
+	public void printOutputCascadeResult(String outputFilePath, CascadeResult result) {
+		try (Output out = openOutput(outputFilePath)) {
+			out.text("Generation, numberActive").newLine();
+			for (int generation = 0; generation < result.getNumGenerations(); generation++) {
+				out.number(generation).text(", ").number(result.getTotalActive(generation)).newLine();
+			}
+			out.text("Generation, newlyActiveNodeNums").newLine();
+			int[] current = { 0 };
+			out.number(0).text(", ");
+			result.forEachActivation((nodeNum, generation) -> {
+				while (current[0] < generation) {
+					current[0]++;
+					out.newLine().number(current[0]).text(", ");
+				}
+				out.number(nodeNum).text(", ");
+			});
+			out.newLine();
+		} catch (IOException | UncheckedIOException e) {
+			System.out.println("Error when trying to write output for cascade result.");
+		}
+	}
+
+	/**
+	 * Saves one "nodeNum, generation" row per activated node, in activation
+	 * order
+	 * @param outputFilePath	path for file creation
+	 * @param result			cascade result
+	 */
+	public void printOutputCascadeActivations(String outputFilePath, CascadeResult result) {
+		try (Output out = openOutput(outputFilePath)) {
+			out.text("nodeNum, generation").newLine();
+			result.forEachActivation((nodeNum, generation) -> out.number(nodeNum).text(", ").number(generation)
+					.newLine());
+		} catch (IOException | UncheckedIOException e) {
+			System.out.println("Error when trying to write output for cascade result.");
+		}
+	}
+
+	// helper to the printers that writes through the buffered writer if there
+	// is one, or a file opened for this call
+	private Output openOutput(String outputFilePath) throws IOException {
+		if (writer != null) {
+			return new Output(writer.open(outputFilePath), null);
+		}
+		return new Output(null, new PrintWriter(new BufferedWriter(new FileWriter(outputFilePath, true))));
+	}
+
+	/**
+	 * Either a FileSink of the buffered writer or a PrintWriter of its own
+	 */
+	private static final class Output implements AutoCloseable {
+		private final AsyncOutputWriter.FileSink sink;
+		private final PrintWriter out;
+
+		private Output(AsyncOutputWriter.FileSink sink, PrintWriter out) {
+			this.sink = sink;
+			this.out = out;
+		}
+
+		private Output text(String text) {
+			if (sink != null) {
+				sink.print(text);
+			} else {
+				out.print(text);
+			}
+			return this;
+		}
+
+		private Output number(int value) {
+			if (sink != null) {
+				sink.print(value);
+			} else {
+				out.print(value);
+			}
+			return this;
+		}
+
+		// prints the numbers the way List.toString() does
+		private Output numbers(List<Integer> numbers) {
+			if (sink != null) {
+				sink.print(numbers);
+			} else {
+				out.print(numbers);
+			}
+			return this;
+		}
+
+		private Output newLine() {
+			if (sink != null) {
+				sink.println();
+			} else {
+				out.println();
+			}
+			return this;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (out != null) {
+				out.close();
+				if (out.checkError()) {
+					throw new IOException("Error when writing output.");
+				}
+			}
+		}
+	}
+
+}
\ No newline at end of file